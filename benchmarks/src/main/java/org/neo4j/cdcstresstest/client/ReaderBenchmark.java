@@ -0,0 +1,143 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * What a reader of {@link QueueBasedCDCClient} does with every change it takes without a processing stage, and the
+ * cost model it can spend CPU time in. One operation is one change, on one and on four reader threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    private static final int EVENTS = 1024;
+    // Like QueueBasedCDCClient, so that the progress slots of the readers do not share a cache line
+    private static final int PROGRESS_STRIDE = 16;
+    // A tracker holds every change of a run, start over at about a run's worth to keep the heap from growing
+    private static final int CHANGES_PER_TRACKER = 2*1000*1000;
+
+    /**
+     * The progress counters the readers publish for the telemetry, shared like in the client
+     */
+    @State(Scope.Benchmark)
+    public static class Progress {
+        AtomicLongArray slots;
+
+        @Setup
+        public void setup(ThreadParams threads) {
+            slots = new AtomicLongArray(threads.getThreadCount() * PROGRESS_STRIDE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        @Param({"32", "1024"})
+        int payloadBytes;
+
+        ChangeEvent[] events;
+        int progressSlot;
+        int count;
+        long cumulativeSize;
+        String changeId;
+        ChangeTracker changeTracker;
+        LatencyHistogram processLatency;
+
+        @Setup(Level.Trial)
+        public void setup(ThreadParams thread) {
+            events = SyntheticRecords.events(payloadBytes, EVENTS);
+            progressSlot = thread.getThreadIndex() * PROGRESS_STRIDE;
+        }
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            changeTracker = new ChangeTracker();
+            processLatency = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * The cost model ignores the change, so it runs on one payload size only
+     */
+    @State(Scope.Thread)
+    public static class CostModel {
+        ChangeEvent event;
+        int count;
+        float averageDuration;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            event = SyntheticRecords.events(32, 1)[0];
+        }
+    }
+
+    private static ChangeEvent read(Reader reader, Progress progress) {
+        var next = reader.events[reader.count & (EVENTS - 1)];
+        reader.cumulativeSize += next.recordSize();
+        reader.changeId = next.id();
+        // The events repeat, so count up instead of using their own ids to stay in order
+        reader.changeTracker.record(reader.count / 2500 + 1, reader.count % 2500);
+        reader.count++;
+        reader.processLatency.record(WallClock.nowMicros() - next.commitTimeMicros());
+        progress.slots.lazySet(reader.progressSlot, reader.count);
+        progress.slots.lazySet(reader.progressSlot + 2, next.commitTimeMicros());
+        if (reader.changeTracker.size() == CHANGES_PER_TRACKER) {
+            reader.changeTracker = new ChangeTracker();
+        }
+        return next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ChangeEvent bookkeeping(Reader reader, Progress progress) {
+        return read(reader, progress);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ChangeEvent bookkeepingFourReaders(Reader reader, Progress progress) {
+        return read(reader, progress);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public float rollingAverage(CostModel model) {
+        model.averageDuration = QueueBasedCDCClient.rollingAverage(model.averageDuration, model.count & 7, ++model.count);
+        return model.averageDuration;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public float processRecord(CostModel model) {
+        model.averageDuration = QueueBasedCDCClient.processRecord(model.event, model.averageDuration, ++model.count);
+        return model.averageDuration;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public float processRecordFourReaders(CostModel model) {
+        model.averageDuration = QueueBasedCDCClient.processRecord(model.event, model.averageDuration, ++model.count);
+        return model.averageDuration;
+    }
+}
@@ -0,0 +1,82 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the fetcher does with every record before handing it off: read the id, estimate the size and decode it into a
+ * {@link ChangeEvent}. One operation is one record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    @Param({"32", "1024", "16384"})
+    int payloadBytes;
+
+    private Record[] records;
+    private int next;
+
+    @State(Scope.Thread)
+    public static class Decoder {
+        @Param({"false", "true"})
+        boolean offHeap;
+
+        ChangeEventDecoder decoder;
+        long position;
+
+        @Setup
+        public void setup() {
+            decoder = new ChangeEventDecoder(offHeap);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        records = SyntheticRecords.records(payloadBytes, RECORDS);
+    }
+
+    private Record nextRecord() {
+        return records[next++ & (RECORDS - 1)];
+    }
+
+    @Benchmark
+    public String recordId() {
+        return nextRecord().get("id").asString();
+    }
+
+    @Benchmark
+    public int sizeOf() {
+        return ValueSizeEstimator.sizeOf(nextRecord());
+    }
+
+    /**
+     * Decoding with the size accounting of {@link QueueBasedCDCClient#decode}
+     */
+    @Benchmark
+    public void decode(Decoder decoder, Blackhole blackhole) {
+        var event = decoder.decoder.decode(nextRecord(), decoder.position++);
+        blackhole.consume(event);
+        blackhole.consume(event.heapSize());
+        blackhole.consume(event.recordSize());
+    }
+}
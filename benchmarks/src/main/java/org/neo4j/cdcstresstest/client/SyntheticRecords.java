@@ -0,0 +1,46 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Record;
+
+/**
+ * Driver records like the ones the client reads, taken from a {@link SyntheticChangeSource} so no server is needed
+ */
+public final class SyntheticRecords {
+
+    private SyntheticRecords() {
+    }
+
+    /**
+     * @param count A power of two, so benchmarks can cycle through the records with a mask
+     */
+    public static Record[] records(int payloadBytes, int count) {
+        if (Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("Not a power of two: " + count);
+        }
+        var source = new SyntheticChangeSource(payloadBytes, 2500, 10, count);
+        // At rate 0 every query returns a full batch
+        source.start(0);
+        var records = new Record[count];
+        try (var cursor = source.openCursor()) {
+            var result = cursor.query(source.current(), count);
+            for (int i = 0; i < count; i++) {
+                records[i] = result.next();
+            }
+        }
+        source.stop();
+        return records;
+    }
+
+    /**
+     * The records decoded like the fetcher does, with the payloads on the heap
+     */
+    public static ChangeEvent[] events(int payloadBytes, int count) {
+        var decoder = new ChangeEventDecoder(false);
+        var records = records(payloadBytes, count);
+        var events = new ChangeEvent[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = decoder.decode(records[i], i);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,140 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+import org.neo4j.cdcstresstest.client.SyntheticRecords;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One fetcher offering changes to one or four readers that poll without waiting, like the client between queries.
+ * Offers to a full hand-off and polls of an empty one are counted apart from the records that got through: the
+ * {@code handedOff} rate is the one to compare, its inverse is the time per record.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class HandOffBenchmark {
+
+    private static final int EVENTS = 1024;
+
+    @Param({"queue", "ring", "laned"})
+    String handOff;
+
+    HandOff<ChangeEvent> queue;
+    ChangeEvent[] events;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Fetcher {
+        public long handedOff;
+        public long full;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            handedOff = 0;
+            full = 0;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Reader {
+        public long taken;
+        public long empty;
+        HandOff<ChangeEvent> lane;
+
+        @Setup(Level.Trial)
+        public void setup(HandOffBenchmark benchmark, ThreadParams thread) {
+            lane = benchmark.queue.forReader(thread.getSubgroupThreadIndex());
+        }
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            taken = 0;
+            empty = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkParams params) {
+        // Subgroups are ordered by method name, so the readers come second
+        var readers = params.getThreadGroups()[1];
+        queue = switch (handOff) {
+            case "queue" -> new QueueHandOff<>(100*1000);
+            case "ring" -> new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING);
+            case "laned" -> new LanedHandOff<>(readers, lane -> new RingBufferHandOff<>(16*1024, WaitStrategy.Type.BLOCKING), ChangeEvent::entityHash);
+            default -> throw new IllegalArgumentException("Unknown hand-off " + handOff);
+        };
+        // References are handed off, so the payload size does not matter
+        events = SyntheticRecords.events(32, EVENTS);
+    }
+
+    private boolean offer(Fetcher fetcher) {
+        if (queue.offer(events[fetcher.next & (EVENTS - 1)])) {
+            fetcher.next++;
+            fetcher.handedOff++;
+            return true;
+        }
+        fetcher.full++;
+        return false;
+    }
+
+    private ChangeEvent poll(Reader reader) throws InterruptedException {
+        var next = reader.lane.poll(0, TimeUnit.MILLISECONDS);
+        if (next == null) {
+            reader.empty++;
+        } else {
+            reader.taken++;
+        }
+        return next;
+    }
+
+    @Benchmark
+    @Group("oneReader")
+    @GroupThreads(1)
+    public boolean oneReaderOffer(Fetcher fetcher) {
+        return offer(fetcher);
+    }
+
+    @Benchmark
+    @Group("oneReader")
+    @GroupThreads(1)
+    public ChangeEvent oneReaderPoll(Reader reader) throws InterruptedException {
+        return poll(reader);
+    }
+
+    @Benchmark
+    @Group("fourReaders")
+    @GroupThreads(1)
+    public boolean fourReadersOffer(Fetcher fetcher) {
+        return offer(fetcher);
+    }
+
+    @Benchmark
+    @Group("fourReaders")
+    @GroupThreads(4)
+    public ChangeEvent fourReadersPoll(Reader reader) throws InterruptedException {
+        return poll(reader);
+    }
+}
@@ -0,0 +1,20 @@
+package org.neo4j.cdcstresstest;
+
+/**
+ * How worker threads are created.
+ * <p>
+ * Virtual threads let the change maker run thousands of concurrent writer sessions without an OS thread each.
+ * Workers that spin while they wait, like the BUSY_SPIN and YIELD wait strategies, keep their carrier thread busy and
+ * should stay on platform threads.
+ */
+public enum ThreadMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public Thread newThread(String name, Runnable task) {
+        return switch (this) {
+            case PLATFORM -> Thread.ofPlatform().name(name).unstarted(task);
+            case VIRTUAL -> Thread.ofVirtual().name(name).unstarted(task);
+        };
+    }
+}
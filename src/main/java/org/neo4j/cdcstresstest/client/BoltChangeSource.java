@@ -0,0 +1,100 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.cdcstresstest.client.CDCClient.RETRIEVE_CHANGES_CYPHER;
+import static org.neo4j.cdcstresstest.client.CDCClient.RETRIEVE_LIMITED_CHANGES_CYPHER;
+import static org.neo4j.cdcstresstest.client.CDCClient.RETRIEVE_LIMITED_SELECTED_CHANGES_CYPHER;
+import static org.neo4j.cdcstresstest.client.CDCClient.RETRIEVE_SELECTED_CHANGES_CYPHER;
+
+/**
+ * Reads changes from a Neo4j server through db.cdc.query over Bolt.
+ */
+public class BoltChangeSource implements ChangeSource {
+
+    private final Driver driver;
+
+    public BoltChangeSource(String uri, AuthToken authToken) {
+        this(GraphDatabase.driver(uri, authToken));
+    }
+
+    public BoltChangeSource(Driver driver) {
+        this.driver = driver;
+    }
+
+    public Driver driver() {
+        return driver;
+    }
+
+    @Override
+    public String current() {
+        try (var session = driver.session()) {
+            return session
+                    .run("CALL db.cdc.current()")
+                    .single().get("id").asString();
+        }
+    }
+
+    @Override
+    public Cursor openCursor() {
+        return new BoltCursor(driver.session());
+    }
+
+    @Override
+    public Cursor openCursor(Collection<String> labels) {
+        // Labels within one selector must all match, so every label gets selectors of its own
+        var selectors = labels.stream()
+                .<Map<String, Object>>mapMulti((label, downstream) -> {
+                    downstream.accept(Map.of("select", "n", "labels", List.of(label)));
+                    downstream.accept(Map.of("select", "r", "start", Map.of("labels", List.of(label))));
+                })
+                .toList();
+        return new SelectingBoltCursor(driver.session(), selectors);
+    }
+
+    @Override
+    public void close() {
+        driver.close();
+    }
+
+    private record BoltCursor(Session session) implements Cursor {
+
+        @Override
+        public Iterator<Record> query(String previousId, int limit) {
+            if (limit == UNLIMITED) {
+                return session.run(RETRIEVE_CHANGES_CYPHER, Map.of("previous_id", previousId));
+            }
+            return session.run(RETRIEVE_LIMITED_CHANGES_CYPHER, Map.of("previous_id", previousId, "limit", limit));
+        }
+
+        @Override
+        public void close() {
+            session.close();
+        }
+    }
+
+    private record SelectingBoltCursor(Session session, List<Map<String, Object>> selectors) implements Cursor {
+
+        @Override
+        public Iterator<Record> query(String previousId, int limit) {
+            if (limit == UNLIMITED) {
+                return session.run(RETRIEVE_SELECTED_CHANGES_CYPHER, Map.of("previous_id", previousId, "selectors", selectors));
+            }
+            return session.run(RETRIEVE_LIMITED_SELECTED_CHANGES_CYPHER, Map.of("previous_id", previousId, "selectors", selectors, "limit", limit));
+        }
+
+        @Override
+        public void close() {
+            session.close();
+        }
+    }
+}
@@ -1,6 +1,18 @@
 package org.neo4j.cdcstresstest.client;
 
-public interface CDCClient {
+import org.neo4j.cdcstresstest.client.checkpoint.CheckpointStats;
+import org.neo4j.cdcstresstest.client.handoff.SpillStats;
+import org.neo4j.cdcstresstest.client.polling.PollingStats;
+import org.neo4j.cdcstresstest.client.processing.ProcessingStats;
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.driver.Record;
+
+import java.io.Serializable;
+import java.util.List;
+
+public interface CDCClient extends AutoCloseable {
 
     /**
      * Start querying from the given change id
@@ -12,20 +24,119 @@ public interface CDCClient {
      */
     RunResult waitForResults() throws InterruptedException;
 
+    /**
+     * Release what the client keeps between runs, like the threads of its processing stage. Call once, after the last run.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Where a running client is at, cheap enough to ask for every second
+     */
+    default Progress progress() {
+        return Progress.NONE;
+    }
+
+    /**
+     * Live view of a running client, see {@link org.neo4j.cdcstresstest.metrics.TelemetrySampler}. Counters restart
+     * with every run.
+     *
+     * @param lastSeenId                Id of the last change received
+     * @param lastSeenCommitMicros      Commit time of the last change received (us since the epoch)
+     * @param lastProcessedCommitMicros Commit time of the most recent change processed by any reader (us since the epoch)
+     * @param seen                      Number of changes received
+     * @param processed                 Number of changes processed
+     * @param queueDepth                Number of changes waiting in the hand-off
+     * @param readers                   Number of reader threads
+     * @param readerWaitNanos           Time the readers spent waiting for changes, summed over all readers (ns)
+     */
+    record Progress(String lastSeenId, long lastSeenCommitMicros, long lastProcessedCommitMicros, long seen,
+                    long processed, int queueDepth, int readers, long readerWaitNanos) {
+        public static final Progress NONE = new Progress("", 0, 0, 0, 0, 0, 0, 0);
+    }
+
     /**
      * Stress test statistics
      *
      * @param numRecordsSeen      The number of records that have been received through db.cdc.query
-     * @param numRecordsProcessed The number of records that have been "processed" by the client (emulated busy work, see {@link QueueBasedCDCClient#processRecord} for details).
+     * @param numRecordsProcessed The number of records that have been processed by the client: taken by a reader, or finished by the {@link org.neo4j.cdcstresstest.client.processing.ProcessingStage} if there is one
      * @param duration            Wall-clock time of how long the client threads have been running (ms)
      * @param changeId            Last seen changeId by the client
-     * @param averageRecordSize   Average size of the records seen in bytes (based on Record.toString, so includes "Record{" at the start.)
+     * @param averageRecordSize   Average size of the records seen in bytes, with their keys and values encoded by {@link ValueCodec}, see {@link ValueSizeEstimator}
+     * @param handOffStats        How records were passed from the fetcher to the reader threads
+     * @param processedPerReader  The number of records processed by each reader thread (or lane), in reader order
+     * @param receiveLatency      Time from the commit of a change until the client received it (us)
+     * @param processLatency      Time from the commit of a change until the client processed it (us)
+     * @param verification        Duplicates, gaps and ordering of the changes processed (or seen, if the client does not process them)
+     * @param processing          How the processing stage kept up, if there is one
+     * @param checkpoints         What saving the position of the processed changes cost, if the client saves it
+     * @param polling             How often the client queried and what waiting between queries cost
      */
-    record RunResult(int numRecordsSeen, int numRecordsProcessed, long duration, String changeId, float averageRecordSize){}
+    record RunResult(int numRecordsSeen, int numRecordsProcessed, long duration, String changeId, float averageRecordSize, HandOffStats handOffStats, List<Integer> processedPerReader,
+                     LatencyHistogram.Summary receiveLatency, LatencyHistogram.Summary processLatency, ChangeTracker.Report verification, ProcessingStats processing,
+                     CheckpointStats checkpoints, PollingStats polling) implements Serializable {
+
+        /**
+         * How much busier the busiest reader was than the average reader, 1.0 is perfectly balanced
+         */
+        public float readerSkew() {
+            var max = processedPerReader.stream().mapToInt(Integer::intValue).max().orElse(0);
+            var average = processedPerReader.stream().mapToInt(Integer::intValue).average().orElse(0);
+            return average == 0 ? 0 : (float) (max / average);
+        }
+
+        /**
+         * Process rate of the busiest reader (changes/s)
+         */
+        public float maxReaderRate() {
+            var max = processedPerReader.stream().mapToInt(Integer::intValue).max().orElse(0);
+            return duration == 0 ? 0 : max / (duration / 1000f);
+        }
+    }
+
+    /**
+     * Hand-off statistics, queue depth is sampled by the fetcher every few records.
+     *
+     * @param handOff        Description of the hand-off implementation
+     * @param capacity       Number of records the hand-off can hold
+     * @param maxQueueDepth  Largest number of records seen waiting in the hand-off
+     * @param avgQueueDepth  Average number of records seen waiting in the hand-off
+     * @param readerWaitTime Time the reader threads spent waiting for records, summed over all readers (ms)
+     * @param fetcherBlockedTime Time the fetcher spent waiting for room in a full hand-off (ms)
+     * @param spill          Records that overflowed to disk instead of waiting for room
+     * @param heapPerChange  Estimated heap held by each change while it is buffered (bytes), see {@link ChangeEvent#heapSize}
+     */
+    record HandOffStats(String handOff, int capacity, int maxQueueDepth, float avgQueueDepth, long readerWaitTime, long fetcherBlockedTime, SpillStats spill, float heapPerChange) implements Serializable {
+        public static final HandOffStats NONE = new HandOffStats("none", 0, 0, 0, 0, 0, SpillStats.NONE, 0);
+    }
+
+    /**
+     * Commit time of the transaction a change belongs to, according to the server's clock (us since the epoch)
+     */
+    static long commitTimeMicros(Record change) {
+        return WallClock.micros(change.get("metadata").get("txCommitTime").asZonedDateTime());
+    }
 
     String RETRIEVE_CHANGES_CYPHER = """
         CALL db.cdc.query($previous_id)
         YIELD id, txId, seq, event, metadata
         RETURN id, txId, seq, event, metadata
         """.stripIndent();
+
+    /**
+     * Like {@link #RETRIEVE_CHANGES_CYPHER}, for the changes that match any of the given selectors
+     */
+    String RETRIEVE_SELECTED_CHANGES_CYPHER = """
+        CALL db.cdc.query($previous_id, $selectors)
+        YIELD id, txId, seq, event, metadata
+        RETURN id, txId, seq, event, metadata
+        """.stripIndent();
+
+    /**
+     * Like {@link #RETRIEVE_CHANGES_CYPHER}, for at most $limit changes. The server stops reading once it has enough.
+     */
+    String RETRIEVE_LIMITED_CHANGES_CYPHER = RETRIEVE_CHANGES_CYPHER + "LIMIT $limit\n";
+
+    String RETRIEVE_LIMITED_SELECTED_CHANGES_CYPHER = RETRIEVE_SELECTED_CHANGES_CYPHER + "LIMIT $limit\n";
 }
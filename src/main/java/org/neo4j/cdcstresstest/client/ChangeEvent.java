@@ -0,0 +1,86 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Value;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact form of a db.cdc.query record, decoded by the fetcher so the driver's object graph can be dropped straight away.
+ * The fields the client needs per change are primitives; the event and metadata maps stay encoded with {@link ValueCodec}
+ * in the payload (event first, then metadata) until somebody asks for them.
+ *
+ * @param id               Change id, to resume from
+ * @param position         Index of the change in the order the fetcher received them during this run
+ * @param txId             Transaction id
+ * @param seq              Position of the change in its transaction
+ * @param operation        Kind of change
+ * @param entityHash       Hash of the element id of the changed node or relationship
+ * @param commitTimeMicros Commit time of the transaction, by the server's clock (us since the epoch)
+ * @param recordSize       Size of the original record with its keys and values encoded by {@link ValueCodec}, see {@link ValueSizeEstimator}
+ * @param eventLength      Number of payload bytes taken by the event, the metadata follows
+ * @param payload          Encoded event and metadata, on or off heap
+ */
+public record ChangeEvent(
+        String id,
+        long position,
+        long txId,
+        long seq,
+        Operation operation,
+        int entityHash,
+        long commitTimeMicros,
+        int recordSize,
+        int eventLength,
+        ByteBuffer payload
+) {
+
+    // Object layout assuming compressed oops: 12 byte header, references take 4 bytes, objects align to 8
+    private static final int EVENT_OBJECT_BYTES = align(12 + 4 + 8 + 8 + 8 + 4 + 4 + 8 + 4 + 4 + 4);
+    private static final int STRING_OBJECT_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int BYTE_BUFFER_OBJECT_BYTES = 56;
+
+    public Value event() {
+        return ValueCodec.decode(payload.duplicate());
+    }
+
+    public Value metadata() {
+        return ValueCodec.decode(payload.duplicate().position(eventLength));
+    }
+
+    /**
+     * Estimated heap retained by this event. Off-heap payloads only count their buffer object.
+     */
+    public int heapSize() {
+        var payloadBytes = payload.isDirect() ? 0 : align(ARRAY_HEADER_BYTES + payload.capacity());
+        return EVENT_OBJECT_BYTES
+                + STRING_OBJECT_BYTES + align(ARRAY_HEADER_BYTES + id.length())
+                + BYTE_BUFFER_OBJECT_BYTES + payloadBytes;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    public enum Operation {
+        NODE_CREATE, NODE_UPDATE, NODE_DELETE,
+        RELATIONSHIP_CREATE, RELATIONSHIP_UPDATE, RELATIONSHIP_DELETE;
+
+        /**
+         * @param eventType "n" or "r"
+         * @param operation "c", "u" or "d"
+         */
+        static Operation of(String eventType, String operation) {
+            var node = switch (eventType) {
+                case "n" -> true;
+                case "r" -> false;
+                default -> throw new IllegalArgumentException("Unknown event type " + eventType);
+            };
+            return switch (operation) {
+                case "c" -> node ? NODE_CREATE : RELATIONSHIP_CREATE;
+                case "u" -> node ? NODE_UPDATE : RELATIONSHIP_UPDATE;
+                case "d" -> node ? NODE_DELETE : RELATIONSHIP_DELETE;
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            };
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.cdcstresstest.client.handoff.Codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes {@link ChangeEvent}s field by field, the payload is already encoded and is copied as is.
+ * Decoded events always have their payload on the heap.
+ */
+public class ChangeEventCodec implements Codec<ChangeEvent> {
+
+    private static final ChangeEvent.Operation[] OPERATIONS = ChangeEvent.Operation.values();
+
+    @Override
+    public void encode(ChangeEvent event, ByteBuffer buffer) {
+        ValueCodec.putString(event.id(), buffer);
+        buffer.putLong(event.position())
+                .putLong(event.txId())
+                .putLong(event.seq())
+                .put((byte) event.operation().ordinal())
+                .putInt(event.entityHash())
+                .putLong(event.commitTimeMicros())
+                .putInt(event.recordSize())
+                .putInt(event.eventLength())
+                .putInt(event.payload().remaining())
+                .put(event.payload().duplicate());
+    }
+
+    @Override
+    public ChangeEvent decode(ByteBuffer buffer) {
+        var id = ValueCodec.getString(buffer);
+        var position = buffer.getLong();
+        var txId = buffer.getLong();
+        var seq = buffer.getLong();
+        var operation = OPERATIONS[buffer.get()];
+        var entityHash = buffer.getInt();
+        var commitTimeMicros = buffer.getLong();
+        var recordSize = buffer.getInt();
+        var eventLength = buffer.getInt();
+        var payload = ByteBuffer.allocate(buffer.getInt());
+        buffer.get(payload.array());
+        return new ChangeEvent(id, position, txId, seq, operation, entityHash, commitTimeMicros, recordSize, eventLength, payload);
+    }
+}
@@ -0,0 +1,86 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.driver.Record;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns driver records into {@link ChangeEvent}s. Not thread safe, every fetcher needs its own.
+ * <p>
+ * Payloads are encoded into a reusable scratch buffer and then copied into an exactly sized heap array, or into
+ * a slice of a shared off-heap slab. A slab is freed once every event sliced from it has been collected.
+ */
+public class ChangeEventDecoder {
+
+    private static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+    private final boolean offHeap;
+    private ByteBuffer scratch = ByteBuffer.allocate(16 * 1024);
+    private ByteBuffer slab = ByteBuffer.allocateDirect(0);
+
+    /**
+     * @param offHeap Keep payloads in direct memory instead of on the heap
+     */
+    public ChangeEventDecoder(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @param position Index of the record in the order the fetcher received them, see {@link ChangeEvent#position}
+     */
+    public ChangeEvent decode(Record record, long position) {
+        var id = record.get("id").asString();
+        var event = record.get("event");
+        var metadata = record.get("metadata");
+
+        int eventLength;
+        while (true) {
+            try {
+                scratch.clear();
+                ValueCodec.encode(event, scratch);
+                eventLength = scratch.position();
+                ValueCodec.encode(metadata, scratch);
+                scratch.flip();
+                break;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+        var payload = allocate(scratch.remaining());
+        payload.put(scratch).flip();
+
+        var recordSize = Integer.BYTES;
+        for (var key : record.keys()) {
+            recordSize += Integer.BYTES + ValueSizeEstimator.utf8Length(key);
+        }
+        // id is a string, txId and seq are integers, event and metadata are the payload
+        recordSize += 1 + Integer.BYTES + ValueSizeEstimator.utf8Length(id) + 2 * (1 + Long.BYTES) + payload.remaining();
+
+        return new ChangeEvent(
+                id,
+                position,
+                record.get("txId").asLong(),
+                record.get("seq").asLong(),
+                ChangeEvent.Operation.of(event.get("eventType").asString(), event.get("operation").asString()),
+                event.get("elementId").asString().hashCode(),
+                WallClock.micros(metadata.get("txCommitTime").asZonedDateTime()),
+                recordSize,
+                eventLength,
+                payload
+        );
+    }
+
+    private ByteBuffer allocate(int size) {
+        if (!offHeap) {
+            return ByteBuffer.allocate(size);
+        }
+        if (slab.remaining() < size) {
+            slab = ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, size));
+        }
+        var slice = slab.slice(slab.position(), size);
+        slab.position(slab.position() + size);
+        return slice;
+    }
+}
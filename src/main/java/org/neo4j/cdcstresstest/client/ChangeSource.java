@@ -0,0 +1,53 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Record;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Where a {@link CDCClient} gets its changes from. Records have the shape of {@link CDCClient#RETRIEVE_CHANGES_CYPHER}:
+ * id, txId, seq, event, metadata.
+ */
+public interface ChangeSource extends AutoCloseable {
+
+    /**
+     * The id of the latest change, equivalent to db.cdc.current()
+     */
+    String current();
+
+    /**
+     * Open a cursor for a single fetcher thread. Cursors are not thread safe, every fetcher needs its own.
+     */
+    Cursor openCursor();
+
+    /**
+     * Open a cursor that only returns changes to nodes with one of the given labels, and to relationships that start
+     * at such a node. Ids returned by the cursor can only be passed back to a cursor with the same labels.
+     */
+    Cursor openCursor(Collection<String> labels);
+
+    @Override
+    void close();
+
+    interface Cursor extends AutoCloseable {
+
+        int UNLIMITED = Integer.MAX_VALUE;
+
+        /**
+         * Retrieve the changes after the given change id, equivalent to db.cdc.query.
+         * The returned iterator must be drained before the next call to query.
+         */
+        default Iterator<Record> query(String previousId) {
+            return query(previousId, UNLIMITED);
+        }
+
+        /**
+         * Retrieve at most the given number of changes after the given change id, {@link #UNLIMITED} for all of them
+         */
+        Iterator<Record> query(String previousId, int limit);
+
+        @Override
+        void close();
+    }
+}
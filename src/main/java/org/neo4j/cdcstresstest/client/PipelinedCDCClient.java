@@ -0,0 +1,304 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.client.handoff.HandOff;
+import org.neo4j.cdcstresstest.client.polling.Poller;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.metrics.jfr.CdcQueryEvent;
+import org.neo4j.cdcstresstest.metrics.jfr.IdleBackoffEvent;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.exceptions.TransientException;
+import org.neo4j.driver.reactive.ReactiveResult;
+import org.neo4j.driver.reactive.ReactiveSession;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches changes with the driver's reactive sessions instead of a blocking loop.
+ * <p>
+ * Records are requested from the server in bounded batches, and only as many as the hand-off has room for, so
+ * backpressure reaches the server instead of piling up in the driver. Queries do not overlap: every db.cdc.query
+ * continues from the last change of the one before, so it can only be sent once that one completed. It is sent from
+ * the IO thread at that moment, on a second session that is already connected, so no thread blocks in between and
+ * no connection has to be set up. The delays a {@link PollingPolicy} asks for between queries are timed rather than
+ * slept.
+ */
+public class PipelinedCDCClient extends QueueBasedCDCClient {
+
+    private static final long RETRY_NANOS = 100_000;
+    private static final long RETRY_DELAY_MS = 100;
+    private static final long SESSION_CLOSE_TIMEOUT_MS = 10*1000;
+
+    private final BoltChangeSource source;
+    private final int maxDemand;
+
+    /**
+     * @param maxDemand Most records requested from the server at a time, also used as the driver fetch size
+     */
+    public PipelinedCDCClient(BoltChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, int maxDemand) {
+        this(source, numReaderThreads, queue, maxDemand, PollingPolicy.ADAPTIVE);
+    }
+
+    /**
+     * @param maxDemand Most records requested from the server at a time, also used as the driver fetch size
+     * @param polling   How much to ask for and how long to wait between queries
+     */
+    public PipelinedCDCClient(BoltChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, int maxDemand, PollingPolicy polling) {
+        super(source, numReaderThreads, queue, false, ThreadMode.PLATFORM, null, null, polling);
+        this.source = source;
+        this.maxDemand = maxDemand;
+    }
+
+    @Override
+    protected void fillQueue(String current) {
+        var scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "CDCClient scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var sessionConfig = SessionConfig.builder().withFetchSize(maxDemand).build();
+        var sessions = new ReactiveSession[]{
+                source.driver().session(ReactiveSession.class, sessionConfig),
+                source.driver().session(ReactiveSession.class, sessionConfig)
+        };
+        var done = new CompletableFuture<Void>();
+        try {
+            new ChangeSubscriber(sessions, scheduler, done).query();
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            close(sessions);
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Close the sessions and wait for it, so their connections are back in the pool before the next run
+     */
+    private static void close(ReactiveSession[] sessions) {
+        var closed = new CompletableFuture<?>[sessions.length];
+        for (int i = 0; i < sessions.length; i++) {
+            closed[i] = first(sessions[i].close());
+        }
+        try {
+            CompletableFuture.allOf(closed).get(SESSION_CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Could not close the sessions cleanly: " + e);
+        }
+    }
+
+    /**
+     * Subscribe to a publisher and complete with its first item, or null if there was none.
+     */
+    private static <T> CompletableFuture<T> first(Flow.Publisher<T> publisher) {
+        var future = new CompletableFuture<T>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                future.complete(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Receives the records of one query after the other. Reactive signals arrive on driver IO threads and retries on
+     * the scheduler, so everything that touches the state below holds the lock on this subscriber.
+     */
+    private class ChangeSubscriber implements Flow.Subscriber<Record> {
+        private final ReactiveSession[] sessions;
+        private final ScheduledExecutorService scheduler;
+        private final CompletableFuture<Void> done;
+        private final Poller poller = newPoller();
+        // Changes the server sent that did not fit in the hand-off yet, at most one batch
+        private final ArrayDeque<ChangeEvent> pending = new ArrayDeque<>();
+
+        private Flow.Subscription subscription;
+        private int queries;
+        private long outstanding;
+        private int received;
+        private long receivedBytes;
+        private boolean completed;
+        // Events span IO and scheduler threads, so they are committed by whichever thread ends them
+        private CdcQueryEvent queryEvent;
+        private long queryStart;
+        private IdleBackoffEvent backoff;
+
+        ChangeSubscriber(ReactiveSession[] sessions, ScheduledExecutorService scheduler, CompletableFuture<Void> done) {
+            this.sessions = sessions;
+            this.scheduler = scheduler;
+            this.done = done;
+        }
+
+        synchronized void query() {
+            if (isStopping()) {
+                done.complete(null);
+                return;
+            }
+            if (backoff != null) {
+                backoff.commit();
+                backoff = null;
+            }
+            // Alternate sessions, so the next query never waits for the previous session to settle
+            var session = sessions[queries++ % sessions.length];
+            received = 0;
+            receivedBytes = 0;
+            completed = false;
+            queryEvent = new CdcQueryEvent();
+            queryEvent.begin();
+            queryStart = System.nanoTime();
+            poller.queryStarted();
+            var limit = poller.limit();
+            var query = limit == ChangeSource.Cursor.UNLIMITED
+                    ? session.run(RETRIEVE_CHANGES_CYPHER, Map.of("previous_id", lastChangeId()))
+                    : session.run(RETRIEVE_LIMITED_CHANGES_CYPHER, Map.of("previous_id", lastChangeId(), "limit", limit));
+            first(query)
+                    .thenApply(ReactiveResult::records)
+                    .whenComplete((records, error) -> {
+                        if (error != null) {
+                            onError(error instanceof CompletionException ? error.getCause() : error);
+                        } else {
+                            records.subscribe(this);
+                        }
+                    });
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.outstanding = 0;
+            requestMore();
+        }
+
+        @Override
+        public synchronized void onNext(Record record) {
+            outstanding--;
+            if (received++ == 0) {
+                queryEvent.firstRecord(queryStart);
+            }
+            var change = decode(record);
+            received(change);
+            poller.received(change.commitTimeMicros());
+            receivedBytes += change.recordSize();
+            if (!pending.isEmpty()) {
+                // A drain is already scheduled
+                pending.add(change);
+                return;
+            }
+            if (!tryPublish(change)) {
+                pending.add(change);
+                scheduler.schedule(this::drain, RETRY_NANOS, TimeUnit.NANOSECONDS);
+                return;
+            }
+            if (isStopping()) {
+                subscription.cancel();
+                done.complete(null);
+            } else if (outstanding == 0) {
+                requestMore();
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable throwable) {
+            if (throwable instanceof TransientException) {
+                System.err.println("Ignoring transient exception at " + lastChangeId() + ": " + throwable.getMessage());
+                scheduler.schedule(this::query, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            } else {
+                done.completeExceptionally(throwable);
+            }
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            completed = true;
+            if (received == 0) {
+                queryEvent.firstRecord(queryStart);
+            }
+            queryEvent.end();
+            if (queryEvent.shouldCommit()) {
+                queryEvent.labels = "";
+                queryEvent.records = received;
+                queryEvent.bytes = receivedBytes;
+                queryEvent.commit();
+            }
+            if (pending.isEmpty()) {
+                next();
+            }
+        }
+
+        /**
+         * Ask the server for as many records as the hand-off can take, or try again shortly if it is full.
+         */
+        private void requestMore() {
+            var handOff = handOff();
+            var room = Math.min(maxDemand, handOff.capacity() - handOff.size());
+            if (room > 0) {
+                outstanding = room;
+                subscription.request(room);
+            } else {
+                scheduler.schedule(this::drain, RETRY_NANOS, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void drain() {
+            if (isStopping()) {
+                subscription.cancel();
+                done.complete(null);
+                return;
+            }
+            while (!pending.isEmpty() && tryPublish(pending.peek())) {
+                pending.poll();
+            }
+            if (!pending.isEmpty()) {
+                scheduler.schedule(this::drain, RETRY_NANOS, TimeUnit.NANOSECONDS);
+            } else if (completed) {
+                next();
+            } else if (outstanding == 0) {
+                requestMore();
+            }
+        }
+
+        private void next() {
+            var delay = poller.delayNanos(received);
+            if (delay > 0) {
+                backoff = new IdleBackoffEvent();
+                backoff.lastRecords = received;
+                backoff.begin();
+                scheduler.schedule(this::query, delay, TimeUnit.NANOSECONDS);
+            } else {
+                query();
+            }
+        }
+    }
+}
@@ -1,117 +1,394 @@
 package org.neo4j.cdcstresstest.client;
 
-import org.neo4j.driver.*;
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.client.checkpoint.CheckpointStats;
+import org.neo4j.cdcstresstest.client.checkpoint.CheckpointStore;
+import org.neo4j.cdcstresstest.client.handoff.HandOff;
+import org.neo4j.cdcstresstest.client.handoff.LanedHandOff;
+import org.neo4j.cdcstresstest.client.handoff.QueueHandOff;
+import org.neo4j.cdcstresstest.client.handoff.SpillStats;
+import org.neo4j.cdcstresstest.client.polling.Poller;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.client.polling.PollingStats;
+import org.neo4j.cdcstresstest.client.processing.ProcessingStage;
+import org.neo4j.cdcstresstest.client.processing.ProcessingStats;
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.cdcstresstest.metrics.jfr.CdcQueryEvent;
+import org.neo4j.cdcstresstest.metrics.jfr.HandOffWaitEvent;
+import org.neo4j.driver.AuthToken;
 import org.neo4j.driver.Record;
 
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 public class QueueBasedCDCClient implements CDCClient {
 
-    private final Driver driver;
+    private static final int DEPTH_SAMPLE_INTERVAL = 64;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long BACKPRESSURE_PARK_NANOS = 100_000;
+    // Longs per reader in readerProgress, keeps readers off each other's cache lines
+    private static final int PROGRESS_STRIDE = 16;
+    private static final int PROGRESS_PROCESSED = 0;
+    private static final int PROGRESS_WAIT = 1;
+    private static final int PROGRESS_COMMIT = 2;
 
-    private final Queue<Record> queue;
+    private final ChangeSource source;
+
+    private final HandOff<ChangeEvent> queue;
     private final int numReaderThreads;
+    private final ChangeEventDecoder decoder;
+    private final ThreadMode readerThreadMode;
+    private final ProcessingStage processing;
+    private final CheckpointStore checkpoints;
+    private final PollingPolicy polling;
     private Thread cdcTask;
     private final List<Thread> readerThreads;
-    private int cdcThreadCount;
-    private String changeId;
     private long startTime;
-    private boolean interrupted;
+    private volatile boolean interrupted;
+    // Set once the fetcher stopped, the readers then drain the hand-off and stop
+    private volatile boolean readersStopping;
+    // Only written by the fetcher, volatile for progress()
+    private volatile int cdcThreadCount;
+    private volatile String changeId;
+    private volatile long lastSeenCommitMicros;
+    private int maxQueueDepth;
+    private long cumulativeQueueDepth;
+    private int queueDepthSamples;
+    private long fetcherBlockedTime;
+    private long cumulativeHeapSize;
+    private long decoded;
+    private LatencyHistogram receiveLatency;
+    private SpillStats spillStatsAtStart;
 
     private List<Integer> processedPerThread;
-    private List<Integer> sleepTimePerThread;
+    private int[] processedPerReader;
+    private List<Long> sleepTimePerThread;
     private List<String> lastChangeIdPerThread;
     private List<Float> averageDurationPerThread;
-    private List<Integer> cumulativeSizePerThread;
-    private List<List<String>> changeIds;
+    private List<Long> cumulativeSizePerThread;
+    private List<ChangeTracker> changeTrackers;
+    private LatencyHistogram processLatency;
+    private AtomicLongArray readerProgress;
+    private List<Poller> pollers;
 
     public QueueBasedCDCClient(String uri, AuthToken authToken, int numReaderThreads) {
-        this.driver = GraphDatabase.driver(uri, authToken);
-        this.queue = new ArrayBlockingQueue<>(100*1000);
+        this(new BoltChangeSource(uri, authToken), numReaderThreads);
+    }
+
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads) {
+        this(source, numReaderThreads, new QueueHandOff<>(100*1000));
+    }
+
+    /**
+     * @param queue Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue) {
+        this(source, numReaderThreads, queue, false);
+    }
+
+    /**
+     * @param queue           Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     * @param offHeapPayloads Keep the encoded event and metadata of buffered changes in direct memory, see {@link ChangeEventDecoder}
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, boolean offHeapPayloads) {
+        this(source, numReaderThreads, queue, offHeapPayloads, ThreadMode.PLATFORM);
+    }
+
+    /**
+     * @param queue            Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     * @param offHeapPayloads  Keep the encoded event and metadata of buffered changes in direct memory, see {@link ChangeEventDecoder}
+     * @param readerThreadMode What the reader threads run on, the fetcher always gets a platform thread of its own
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, boolean offHeapPayloads, ThreadMode readerThreadMode) {
+        this(source, numReaderThreads, queue, offHeapPayloads, readerThreadMode, null);
+    }
+
+    /**
+     * @param queue            Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     * @param offHeapPayloads  Keep the encoded event and metadata of buffered changes in direct memory, see {@link ChangeEventDecoder}
+     * @param readerThreadMode What the reader threads run on, the fetcher always gets a platform thread of its own
+     * @param processing       Where readers send the changes they take, or null to count them as processed straight away
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, boolean offHeapPayloads, ThreadMode readerThreadMode, ProcessingStage processing) {
+        this(source, numReaderThreads, queue, offHeapPayloads, readerThreadMode, processing, null);
+    }
+
+    /**
+     * @param queue            Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     * @param offHeapPayloads  Keep the encoded event and metadata of buffered changes in direct memory, see {@link ChangeEventDecoder}
+     * @param readerThreadMode What the reader threads run on, the fetcher always gets a platform thread of its own
+     * @param processing       Where readers send the changes they take, or null to count them as processed straight away
+     * @param checkpoints      Where to save the position of the processed changes, or null to keep it in memory only.
+     *                         Only for fetchers that receive changes in commit order, a sharded client has no single position
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, boolean offHeapPayloads, ThreadMode readerThreadMode, ProcessingStage processing, CheckpointStore checkpoints) {
+        this(source, numReaderThreads, queue, offHeapPayloads, readerThreadMode, processing, checkpoints, PollingPolicy.ADAPTIVE);
+    }
+
+    /**
+     * @param queue            Hand-off between the fetcher and the reader threads, see {@link org.neo4j.cdcstresstest.client.handoff}
+     * @param offHeapPayloads  Keep the encoded event and metadata of buffered changes in direct memory, see {@link ChangeEventDecoder}
+     * @param readerThreadMode What the reader threads run on, the fetcher always gets a platform thread of its own
+     * @param processing       Where readers send the changes they take, or null to count them as processed straight away
+     * @param checkpoints      Where to save the position of the processed changes, or null to keep it in memory only.
+     *                         Only for fetchers that receive changes in commit order, a sharded client has no single position
+     * @param polling          How much to ask for and how long to wait between queries, every fetcher follows it on its own
+     */
+    public QueueBasedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, boolean offHeapPayloads, ThreadMode readerThreadMode, ProcessingStage processing, CheckpointStore checkpoints, PollingPolicy polling) {
+        // Every reader drains the lane of its own number, a lane without a reader would never be emptied
+        if (queue instanceof LanedHandOff<?> laned && laned.numLanes() != numReaderThreads) {
+            throw new IllegalArgumentException("A laned hand-off needs one reader per lane, got " + laned.numLanes() + " lanes and " + numReaderThreads + " readers");
+        }
+        this.source = source;
+        this.polling = polling;
+        this.processing = processing;
+        this.checkpoints = checkpoints;
+        this.decoder = new ChangeEventDecoder(offHeapPayloads);
+        this.readerThreadMode = readerThreadMode;
+        this.queue = queue;
         this.readerThreads = new LinkedList<>();
         this.numReaderThreads = numReaderThreads;
         reset();
     }
 
-    private void fillQueue(String current) {
-        changeId = current;
-        var count = 0;
-        var timeSpentIdle = 0;
-        try (var session = driver.session()) {
+    /**
+     * Fetch changes and {@link #publish} them until the client is stopped. Runs on its own thread.
+     */
+    protected void fillQueue(String current) {
+        var poller = newPoller();
+        try (var cursor = source.openCursor()) {
             do {
                 var lastCount = 0;
-                var res = session.run(RETRIEVE_CHANGES_CYPHER, Map.of("previous_id", changeId));
-                while (res.hasNext()) {
-                    var next = res.next();
-                    changeId = next.get("id").asString();
-                    do {
-                        try {
-                            queue.offer(next);
-                            break;
-                        } catch (Exception e) {
-                            System.err.println("Queue busy!" + queue.size());
-                            Thread.sleep(100);
-                        }
-                    } while (true);
+                var lastBytes = 0L;
+                var query = new CdcQueryEvent();
+                query.begin();
+                var queryStart = System.nanoTime();
+                poller.queryStarted();
+                var res = cursor.query(changeId, poller.limit());
+                var hasNext = res.hasNext();
+                query.firstRecord(queryStart);
+                while (hasNext) {
+                    var next = decode(res.next());
+                    received(next);
+                    poller.received(next.commitTimeMicros());
+                    if (!publish(next)) {
+                        break;
+                    }
                     lastCount++;
+                    lastBytes += next.recordSize();
+                    hasNext = res.hasNext();
                 }
-
-                if (lastCount < 100) {
-                    timeSpentIdle += 100;
-                    Thread.sleep(100);
+                query.end();
+                if (query.shouldCommit()) {
+                    query.labels = "";
+                    query.records = lastCount;
+                    query.bytes = lastBytes;
+                    query.commit();
                 }
-                count += lastCount;
+
+                poller.pause(lastCount);
             } while (!interrupted);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException(e);
         }
-        synchronized (this){
-            this.cdcThreadCount = count;
+    }
+
+    /**
+     * Turn a record into its compact form, so the driver's objects can be collected before the change is buffered.
+     * Only called by the fetcher.
+     */
+    protected final ChangeEvent decode(Record record) {
+        var event = decoder.decode(record, decoded++);
+        cumulativeHeapSize += event.heapSize();
+        return event;
+    }
+
+    /**
+     * Record how long after its commit a change arrived. Only called by the fetcher, as soon as the change is read.
+     */
+    protected final void received(ChangeEvent next) {
+        received(next, WallClock.nowMicros());
+    }
+
+    /**
+     * Record how long after its commit a change arrived, for fetchers that read it on another thread first.
+     * Only called by the fetcher.
+     *
+     * @param receivedMicros When the change was read (us since the epoch)
+     */
+    protected final void received(ChangeEvent next, long receivedMicros) {
+        receiveLatency.record(receivedMicros - next.commitTimeMicros());
+    }
+
+    /**
+     * Hand a record to the readers. If the hand-off is full, wait for the readers to make room rather than dropping it.
+     *
+     * @return false if the client was stopped while waiting
+     */
+    protected final boolean publish(ChangeEvent next) {
+        if (tryPublish(next)) {
+            return true;
+        }
+        var blockedSince = System.nanoTime();
+        var wait = new HandOffWaitEvent();
+        wait.begin();
+        try {
+            do {
+                if (interrupted) {
+                    return false;
+                }
+                LockSupport.parkNanos(BACKPRESSURE_PARK_NANOS);
+            } while (!tryPublish(next));
+            return true;
+        } finally {
+            fetcherBlockedTime += System.nanoTime() - blockedSince;
+            wait.end();
+            if (wait.shouldCommit()) {
+                wait.side = HandOffWaitEvent.FETCHER;
+                wait.reader = -1;
+                wait.commit();
+            }
         }
     }
 
-    private void readQueue() {
+    /**
+     * Hand a record to the readers if there is room, for fetchers that must not block.
+     * Calls must not overlap, the hand-off has a single producer.
+     */
+    protected final boolean tryPublish(ChangeEvent next) {
+        if (checkpoints != null && !checkpoints.published(next.position(), next.id())) {
+            return false;
+        }
+        if (!queue.offer(next)) {
+            return false;
+        }
+        changeId = next.id();
+        lastSeenCommitMicros = next.commitTimeMicros();
+        cdcThreadCount++;
+        if (cdcThreadCount % DEPTH_SAMPLE_INTERVAL == 0) {
+            var depth = queue.size();
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+            cumulativeQueueDepth += depth;
+            queueDepthSamples++;
+        }
+        return true;
+    }
+
+    /**
+     * Id of the last change handed to the readers
+     */
+    protected final String lastChangeId() {
+        return changeId;
+    }
+
+    /**
+     * A poller for one fetcher of this run, its statistics end up in the results
+     */
+    protected final synchronized Poller newPoller() {
+        var poller = new Poller(polling);
+        pollers.add(poller);
+        return poller;
+    }
+
+    protected final boolean isStopping() {
+        return interrupted;
+    }
+
+    protected final HandOff<ChangeEvent> handOff() {
+        return queue;
+    }
+
+    private void readQueue(int reader) {
+        var handOff = queue.forReader(reader);
+        var progress = readerProgress;
+        var progressSlot = reader * PROGRESS_STRIDE;
         var count = 0;
-        var timeSlept = 0;
+        var timeSlept = 0L;
         var changeId = "";
         var averageDuration = 0.0f;
-        var cumulativeSize = 0;
-        var changeIds = new LinkedList<String>();
-        do {
-            var next = queue.poll();
-            if (next != null) {
-//                averageDuration = processRecord(next, averageDuration, count);
-                cumulativeSize += next.toString().getBytes(StandardCharsets.UTF_8).length;
-                changeId = next.get("id").asString();
-                changeIds.add(changeId);
-                count++;
-            } else {
-                try {
-                    Thread.sleep(10);
-                    timeSlept += 10;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException(e);
+        var cumulativeSize = 0L;
+        var changeTracker = new ChangeTracker();
+        var processLatency = new LatencyHistogram();
+        var batch = new ArrayList<ChangeEvent>();
+        try {
+            ChangeEvent next;
+            boolean stopping;
+            do {
+                // Read before polling: once the fetcher stopped, an empty hand-off stays empty
+                stopping = readersStopping;
+                // With a batch started, take only what is already waiting and send the batch off if nothing is
+                var wait = new HandOffWaitEvent();
+                wait.begin();
+                var waitStart = System.nanoTime();
+                next = handOff.poll(batch.isEmpty() ? POLL_TIMEOUT_MS : 0, TimeUnit.MILLISECONDS);
+                timeSlept += System.nanoTime() - waitStart;
+                wait.end();
+                if (wait.shouldCommit()) {
+                    wait.side = HandOffWaitEvent.READER;
+                    wait.reader = reader;
+                    wait.timedOut = next == null;
+                    wait.commit();
                 }
+                progress.lazySet(progressSlot + PROGRESS_WAIT, timeSlept);
+                if (next != null) {
+//                    averageDuration = processRecord(next, averageDuration, count);
+                    cumulativeSize += next.recordSize();
+                    changeId = next.id();
+                    changeTracker.record(next.txId(), next.seq());
+                    count++;
+                    if (processing == null) {
+                        if (checkpoints != null) {
+                            checkpoints.processed(next.position());
+                        }
+                        processLatency.record(WallClock.nowMicros() - next.commitTimeMicros());
+                        progress.lazySet(progressSlot + PROGRESS_PROCESSED, count);
+                        progress.lazySet(progressSlot + PROGRESS_COMMIT, next.commitTimeMicros());
+                    } else {
+                        batch.add(next);
+                    }
+                }
+                if (!batch.isEmpty() && (next == null || batch.size() == processing.batchSize())) {
+                    submit(batch);
+                    batch = new ArrayList<>();
+                }
+            } while (!stopping || next != null);
+            if (!batch.isEmpty()) {
+                submit(batch);
             }
-        } while (!interrupted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
         synchronized (this) {
             lastChangeIdPerThread.add(changeId);
             processedPerThread.add(count);
-            sleepTimePerThread.add(timeSlept);
+            processedPerReader[reader] = count;
+            sleepTimePerThread.add(timeSlept / 1000 / 1000);
             averageDurationPerThread.add(averageDuration);
             cumulativeSizePerThread.add(cumulativeSize);
-            this.changeIds.add(changeIds);
+            this.changeTrackers.add(changeTracker);
+            this.processLatency.add(processLatency);
         }
     }
 
-    private float rollingAverage(float oldAverage, long newValue, int count) {
+    private void submit(List<ChangeEvent> batch) throws InterruptedException {
+        if (checkpoints == null) {
+            processing.submit(batch);
+        } else {
+            processing.submit(batch, processed -> processed.forEach(change -> checkpoints.processed(change.position())));
+        }
+    }
+
+    // Package private, like processRecord, for the microbenchmarks in benchmarks/
+    static float rollingAverage(float oldAverage, long newValue, int count) {
         if (count == 0) {
             return newValue;
         }
@@ -125,7 +402,7 @@ public class QueueBasedCDCClient implements CDCClient {
      * @param count
      * @return The average duration 'wasted' in this method.
      */
-    private float processRecord(Record next, float oldAverageDuration, int count) {
+    static float processRecord(ChangeEvent next, float oldAverageDuration, int count) {
         var scale = 30;
         long sum = 0;
         var start = System.currentTimeMillis();
@@ -144,55 +421,110 @@ public class QueueBasedCDCClient implements CDCClient {
     private void reset() {
         this.lastChangeIdPerThread = new LinkedList<>();
         this.processedPerThread = new LinkedList<>();
+        this.processedPerReader = new int[numReaderThreads];
         this.sleepTimePerThread = new LinkedList<>();
         this.averageDurationPerThread = new LinkedList<>();
         this.cumulativeSizePerThread = new LinkedList<>();
-        this.changeIds = new LinkedList<>();
+        this.changeTrackers = new LinkedList<>();
+        this.pollers = new ArrayList<>();
         this.interrupted = false;
+        this.readersStopping = false;
+        this.cdcThreadCount = 0;
+        this.maxQueueDepth = 0;
+        this.cumulativeQueueDepth = 0;
+        this.queueDepthSamples = 0;
+        this.fetcherBlockedTime = 0;
+        this.cumulativeHeapSize = 0;
+        this.decoded = 0;
+        this.receiveLatency = new LatencyHistogram();
+        this.processLatency = new LatencyHistogram();
+        this.readerProgress = new AtomicLongArray(numReaderThreads * PROGRESS_STRIDE);
+        this.lastSeenCommitMicros = 0;
+        this.spillStatsAtStart = queue.spillStats();
+        if (processing != null) {
+            processing.reset();
+        }
+        this.readerThreads.clear();
+        discardLeftovers();
+    }
+
+    /**
+     * Readers drain the hand-off before they stop, but one that died in the previous run may have left changes in it
+     */
+    private void discardLeftovers() {
+        var discarded = 0;
+        try {
+            for (int i = 0; i < numReaderThreads; i++) {
+                var handOff = queue.forReader(i);
+                while (handOff.poll(0, TimeUnit.NANOSECONDS) != null) {
+                    discarded++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (discarded > 0) {
+            System.err.println("Discarded " + discarded + " changes left over from the previous run");
+        }
     }
 
     @Override
     public void start(String current) {
         reset();
-        cdcTask = new Thread(() -> fillQueue(current));
+        var from = checkpoints == null ? current : checkpoints.begin(current);
+        changeId = from;
+        cdcTask = new Thread(() -> fillQueue(from));
         cdcTask.setPriority(Thread.MAX_PRIORITY);
         cdcTask.setName("CDCClient from: " + current);
         cdcTask.start();
         for (int i = 0; i < numReaderThreads; i++) {
-            var readTask = new Thread(this::readQueue);
+            var reader = i;
+            var readTask = readerThreadMode.newThread("CDCReader " + i + " for " + current, () -> readQueue(reader));
             readerThreads.add(readTask);
-            readTask.setName("CDCReader " + i + " for " + current);
             readTask.start();
         }
         startTime = System.currentTimeMillis();
     }
 
+    @Override
+    public Progress progress() {
+        var progress = readerProgress;
+        var processed = 0L;
+        var waitNanos = 0L;
+        var lastProcessedCommitMicros = 0L;
+        for (int i = 0; i < numReaderThreads; i++) {
+            processed += progress.get(i * PROGRESS_STRIDE + PROGRESS_PROCESSED);
+            waitNanos += progress.get(i * PROGRESS_STRIDE + PROGRESS_WAIT);
+            lastProcessedCommitMicros = Math.max(lastProcessedCommitMicros, progress.get(i * PROGRESS_STRIDE + PROGRESS_COMMIT));
+        }
+        if (processing != null) {
+            processed = processing.processed();
+            lastProcessedCommitMicros = processing.lastCommitMicros();
+        }
+        return new Progress(changeId, lastSeenCommitMicros, lastProcessedCommitMicros, cdcThreadCount, processed,
+                queue.size(), numReaderThreads, waitNanos);
+    }
+
     @Override
     public RunResult waitForResults() throws InterruptedException {
-        // Tell the threads to stop processing
+        // Tell the fetcher to stop, then the readers once they took everything it handed off, so that changes still
+        // in the hand-off do not show up as gaps
         interrupted = true;
-
-        // Wait for the threads to finish
         cdcTask.join();
         var cdcDuration = System.currentTimeMillis() - startTime;
+        readersStopping = true;
         for (var thread : readerThreads) {
             thread.join();
         }
+        if (processing != null) {
+            processing.awaitIdle();
+        }
+        var checkpointStats = checkpoints == null ? CheckpointStats.NONE : checkpoints.finish();
         var duration = System.currentTimeMillis() - startTime;
 
         System.out.println(cdcDuration + " : " + duration);
 
-        // Verify that the reader threads don't process the same change multiple times:
-//        for(var first : changeIds.getFirst()) {
-//            for(int i = 1; i < changeIds.size(); i++) {
-//                for(var last : changeIds.get(i)) {
-//                    if (first.equals(last)) {
-//                        System.err.println("First and last change id are the same: " + first);
-//                    }
-//                }
-//            }
-//        }
-
 //        System.out.println(processedPerThread);
 //        System.out.println(sleepTimePerThread);
 //        System.out.println(lastChangeIdPerThread);
@@ -202,9 +534,42 @@ public class QueueBasedCDCClient implements CDCClient {
 //                .average()
 //                .orElse(0);
 //        System.out.println(averageIdlePercentageForReaderThreads);
-        var totalCount = processedPerThread.stream().reduce(Integer::sum).orElse(0);
-        var totalSize = cumulativeSizePerThread.stream().reduce(Integer::sum).orElse(0);
-        float averageRecordSize = totalSize / (float) totalCount;
-        return new RunResult(cdcThreadCount, totalCount, duration, changeId, averageRecordSize);
+        var totalTaken = processedPerThread.stream().reduce(Integer::sum).orElse(0);
+        var totalCount = processing != null ? (int) processing.processed() : totalTaken;
+        var totalSize = cumulativeSizePerThread.stream().reduce(Long::sum).orElse(0L);
+        float averageRecordSize = totalSize / (float) totalTaken;
+        var handOffStats = new HandOffStats(
+                queue.toString(),
+                queue.capacity(),
+                maxQueueDepth,
+                queueDepthSamples == 0 ? 0 : cumulativeQueueDepth / (float) queueDepthSamples,
+                sleepTimePerThread.stream().reduce(Long::sum).orElse(0L),
+                fetcherBlockedTime / 1000 / 1000,
+                queue.spillStats().minus(spillStatsAtStart),
+                cdcThreadCount == 0 ? 0 : cumulativeHeapSize / (float) cdcThreadCount
+        );
+        return new RunResult(cdcThreadCount, totalCount, duration, changeId, averageRecordSize, handOffStats,
+                Arrays.stream(processedPerReader).boxed().toList(),
+                receiveLatency.summary(),
+                processing != null ? processing.processLatency() : processLatency.summary(),
+                // Check that the reader threads together took every change exactly once
+                ChangeTracker.verify(changeTrackers),
+                processing != null ? processing.stats() : ProcessingStats.NONE,
+                checkpointStats,
+                pollingStats());
+    }
+
+    /**
+     * Shut down the processing stage, if there is one. The source, hand-off and checkpoints belong to the caller.
+     */
+    @Override
+    public void close() {
+        if (processing != null) {
+            processing.close();
+        }
+    }
+
+    private synchronized PollingStats pollingStats() {
+        return Poller.stats(pollers);
     }
 }
@@ -1,27 +1,61 @@
 package org.neo4j.cdcstresstest.client;
 
+import org.neo4j.cdcstresstest.client.checkpoint.CheckpointStats;
+import org.neo4j.cdcstresstest.client.polling.Poller;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.client.processing.ProcessingStats;
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.cdcstresstest.metrics.jfr.CdcQueryEvent;
 import org.neo4j.driver.AuthToken;
-import org.neo4j.driver.Driver;
-import org.neo4j.driver.GraphDatabase;
 import org.neo4j.driver.exceptions.TransientException;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.List;
 
 public class RecordDroppingCDCClient implements CDCClient {
 
-    Driver driver;
+    private final ChangeSource source;
+    private final PollingPolicy polling;
+    private final int sizeSampleInterval;
     private Thread thread;
     private long startTime;
-    private ChangeCaptureRunnable task;
+    private volatile ChangeCaptureRunnable task;
 
     public RecordDroppingCDCClient(String uri, AuthToken authToken) {
-        this.driver = GraphDatabase.driver(uri, authToken);
+        this(new BoltChangeSource(uri, authToken));
+    }
+
+    /**
+     * Queries again right away while queries come back full, pass {@link PollingPolicy#TIGHT} to never wait at all
+     */
+    public RecordDroppingCDCClient(ChangeSource source) {
+        this(source, PollingPolicy.ADAPTIVE);
+    }
+
+    /**
+     * @param polling How much to ask for and how long to wait between queries
+     */
+    public RecordDroppingCDCClient(ChangeSource source, PollingPolicy polling) {
+        this(source, polling, 1);
+    }
+
+    /**
+     * @param polling            How much to ask for and how long to wait between queries
+     * @param sizeSampleInterval Measure the size of one in every this many records, 1 measures all of them
+     */
+    public RecordDroppingCDCClient(ChangeSource source, PollingPolicy polling, int sizeSampleInterval) {
+        if (sizeSampleInterval < 1) {
+            throw new IllegalArgumentException("Size sample interval must be at least 1, got " + sizeSampleInterval);
+        }
+        this.source = source;
+        this.polling = polling;
+        this.sizeSampleInterval = sizeSampleInterval;
     }
 
     @Override
     public void start(String current) {
-        task = new ChangeCaptureRunnable(current);
+        task = new ChangeCaptureRunnable(current, new Poller(polling));
         this.thread = new Thread(task);
         thread.setPriority(Thread.MAX_PRIORITY);
         thread.setName("CDCClient from: " + current);
@@ -29,24 +63,42 @@ public class RecordDroppingCDCClient implements CDCClient {
         this.thread.start();
     }
 
+    @Override
+    public Progress progress() {
+        var task = this.task;
+        if (task == null) {
+            return Progress.NONE;
+        }
+        return new Progress(task.myChangeId, task.lastCommitMicros, 0, task.myCount, 0, 0, 0, 0);
+    }
+
     @Override
     public RunResult waitForResults() throws InterruptedException {
         task.interrupt();
         thread.join();
         long endTime = System.currentTimeMillis();
-        float averageRecordSize = task.cumulativeSize / (float) task.myCount;
-        return new RunResult(task.myCount, 0, endTime-startTime, task.myChangeId, averageRecordSize);
+        float averageRecordSize = task.cumulativeSize / (float) task.sizeSamples;
+        return new RunResult(task.myCount, 0, endTime-startTime, task.myChangeId, averageRecordSize, HandOffStats.NONE, List.of(),
+                task.receiveLatency.summary(), LatencyHistogram.Summary.NONE, ChangeTracker.verify(List.of(task.changeTracker)), ProcessingStats.NONE, CheckpointStats.NONE,
+                task.poller.stats());
     }
 
 
     private class ChangeCaptureRunnable implements Runnable {
-        private boolean interrupted = false;
-        private int myCount = 0;
+        private volatile boolean interrupted = false;
+        // Volatile for progress()
+        private volatile int myCount = 0;
+        private volatile long lastCommitMicros;
         private long cumulativeSize = 0;
-        private String myChangeId;
-        public ChangeCaptureRunnable(String from) {
+        private int sizeSamples = 0;
+        private final LatencyHistogram receiveLatency = new LatencyHistogram();
+        private final ChangeTracker changeTracker = new ChangeTracker();
+        private volatile String myChangeId;
+        private final Poller poller;
+        public ChangeCaptureRunnable(String from, Poller poller) {
             super();
             this.myChangeId = from;
+            this.poller = poller;
         }
 
         public void interrupt() {
@@ -55,19 +107,50 @@ public class RecordDroppingCDCClient implements CDCClient {
 
         @Override
         public void run() {
-            while (!interrupted) {
-                var res = driver.session().run(RETRIEVE_CHANGES_CYPHER, Map.of("previous_id", myChangeId));
-                try{
-                    while (res.hasNext()) {
-                        var next = res.next();
-                        myCount += 1;
-                        myChangeId = next.get("id").asString();
-                        cumulativeSize += next.toString().getBytes(StandardCharsets.UTF_8).length;
+            try (var cursor = source.openCursor()) {
+                while (!interrupted) {
+                    var query = new CdcQueryEvent();
+                    query.begin();
+                    var queryStart = System.nanoTime();
+                    var records = 0;
+                    var bytes = 0L;
+                    poller.queryStarted();
+                    var res = cursor.query(myChangeId, poller.limit());
+                    try{
+                        var hasNext = res.hasNext();
+                        query.firstRecord(queryStart);
+                        for (; hasNext; hasNext = res.hasNext()) {
+                            var next = res.next();
+                            myCount += 1;
+                            myChangeId = next.get("id").asString();
+                            lastCommitMicros = CDCClient.commitTimeMicros(next);
+                            poller.received(lastCommitMicros);
+                            receiveLatency.record(WallClock.nowMicros() - lastCommitMicros);
+                            if (myCount % sizeSampleInterval == 0) {
+                                var size = ValueSizeEstimator.sizeOf(next);
+                                cumulativeSize += size;
+                                sizeSamples++;
+                                // The sample stands in for the records that were not measured
+                                bytes += (long) size * sizeSampleInterval;
+                            }
+                            records++;
+                            changeTracker.record(next.get("txId").asLong(), next.get("seq").asLong());
+                        }
                     }
+                    catch (TransientException e) {
+                        System.err.println("Ignoring transient exception at " + myChangeId + ": " + e.getMessage());
+                    }
+                    query.end();
+                    if (query.shouldCommit()) {
+                        query.labels = "";
+                        query.records = records;
+                        query.bytes = bytes;
+                        query.commit();
+                    }
+                    poller.pause(records);
                 }
-                catch (TransientException e) {
-                    System.err.println("Ignoring transient exception at " + myChangeId + ": " + e.getMessage());
-                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
     }
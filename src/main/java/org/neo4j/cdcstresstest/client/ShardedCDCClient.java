@@ -0,0 +1,285 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.client.handoff.HandOff;
+import org.neo4j.cdcstresstest.client.polling.Poller;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.cdcstresstest.metrics.jfr.CdcQueryEvent;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.exceptions.TransientException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fetches changes with several cursors at once, each of them reading the changes to a subset of the labels through
+ * db.cdc.query selectors. Every shard has a fetcher thread of its own, and one merging thread hands their changes to
+ * the readers, in the order they arrived or in commit order.
+ * <p>
+ * Shards only see their own labels, so the labels must cover every change the test makes, like the label_id_n labels
+ * of {@link org.neo4j.cdcstresstest.load.CDCChangeMaker}. Fetching and unpacking records happen in parallel, decoding
+ * them into {@link ChangeEvent}s happens on the merging thread.
+ */
+public class ShardedCDCClient extends QueueBasedCDCClient {
+
+    // Records go from a shard to the merging thread in chunks, handing them over one by one costs a wake-up each
+    private static final int CHUNK_SIZE = 256;
+    private static final int SHARD_BUFFER_CHUNKS = 40;
+    private static final long OFFER_TIMEOUT_MS = 10;
+    private static final long MERGE_PARK_NANOS = 50_000;
+
+    private final ChangeSource source;
+    private final List<List<String>> shardLabels;
+    private final Order order;
+    // Only used by the merging thread
+    private int nextShard;
+
+    /**
+     * The order the merged changes reach the readers in
+     */
+    public enum Order {
+        /**
+         * Whichever shard has a change hands it on, changes of different shards interleave freely
+         */
+        ARRIVAL,
+        /**
+         * By transaction id and sequence number, as a single cursor would return them. A change waits until every
+         * other shard either has a later change or has caught up with a query that started after the change arrived,
+         * which costs up to a polling interval of latency on quiet shards.
+         */
+        COMMIT
+    }
+
+    /**
+     * @param labels    Labels to spread over the shards, round robin
+     * @param numShards Number of cursors fetching in parallel
+     */
+    public ShardedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, List<String> labels, int numShards, Order order) {
+        this(source, numReaderThreads, queue, labels, numShards, order, PollingPolicy.ADAPTIVE);
+    }
+
+    /**
+     * @param labels    Labels to spread over the shards, round robin
+     * @param numShards Number of cursors fetching in parallel
+     * @param polling   How much to ask for and how long to wait between queries, every shard follows it on its own
+     */
+    public ShardedCDCClient(ChangeSource source, int numReaderThreads, HandOff<ChangeEvent> queue, List<String> labels, int numShards, Order order, PollingPolicy polling) {
+        super(source, numReaderThreads, queue, false, ThreadMode.PLATFORM, null, null, polling);
+        if (numShards < 1 || numShards > labels.size()) {
+            throw new IllegalArgumentException("Need between 1 and " + labels.size() + " shards, got " + numShards);
+        }
+        this.source = source;
+        this.order = order;
+        this.shardLabels = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            shardLabels.add(new ArrayList<>());
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            shardLabels.get(i % numShards).add(labels.get(i));
+        }
+    }
+
+    @Override
+    protected void fillQueue(String current) {
+        var shards = new ArrayList<Shard>(shardLabels.size());
+        for (int i = 0; i < shardLabels.size(); i++) {
+            var shard = new Shard(shardLabels.get(i), current);
+            shard.thread = new Thread(shard::fetch, "CDCShard " + i + " " + shardLabels.get(i) + " from: " + current);
+            shard.thread.setPriority(Thread.MAX_PRIORITY);
+            shards.add(shard);
+        }
+        shards.forEach(shard -> shard.thread.start());
+        try {
+            while (!isStopping()) {
+                var shard = order == Order.COMMIT ? nextInCommitOrder(shards) : nextArrived(shards);
+                if (shard == null) {
+                    LockSupport.parkNanos(MERGE_PARK_NANOS);
+                    continue;
+                }
+                var chunk = shard.head;
+                var index = shard.headIndex++;
+                var change = decode(chunk.records[index]);
+                received(change, chunk.receivedMicros[index]);
+                if (!publish(change)) {
+                    break;
+                }
+            }
+        } finally {
+            for (var shard : shards) {
+                try {
+                    shard.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The next shard that has a change, round robin so that no shard starves
+     */
+    private Shard nextArrived(List<Shard> shards) {
+        for (int i = 0; i < shards.size(); i++) {
+            var shard = shards.get(nextShard);
+            if (shard.hasHead()) {
+                return shard;
+            }
+            nextShard = (nextShard + 1) % shards.size();
+        }
+        return null;
+    }
+
+    /**
+     * The shard with the earliest change, or null if a shard without changes might still receive an earlier one
+     */
+    private Shard nextInCommitOrder(List<Shard> shards) {
+        Shard earliest = null;
+        for (var shard : shards) {
+            if (shard.hasHead() && (earliest == null || shard.headKey() < earliest.headKey())) {
+                earliest = shard;
+            }
+        }
+        if (earliest == null) {
+            return null;
+        }
+        var receivedNanos = earliest.head.receivedNanos;
+        for (var shard : shards) {
+            // Read the catch-up time before looking for changes, the fetcher updates them the other way around
+            var caughtUpSince = shard.caughtUpSince;
+            if (!shard.hasHead() && caughtUpSince <= receivedNanos) {
+                return null;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Records a shard read one after the other
+     */
+    private static class Chunk {
+        private final Record[] records = new Record[CHUNK_SIZE];
+        // ChangeTracker sort keys, in commit order
+        private final long[] keys = new long[CHUNK_SIZE];
+        // When the shard read each record, to compare with its commit time
+        private final long[] receivedMicros = new long[CHUNK_SIZE];
+        private int size;
+        // When the shard read the last record, to compare with Shard#caughtUpSince
+        private long receivedNanos;
+
+        void add(Record record) {
+            records[size] = record;
+            keys[size] = ChangeTracker.sortKey(record.get("txId").asLong(), record.get("seq").asLong());
+            receivedMicros[size] = WallClock.nowMicros();
+            size++;
+        }
+
+        boolean isFull() {
+            return size == CHUNK_SIZE;
+        }
+    }
+
+    private class Shard {
+        private final List<String> labels;
+        private final ArrayBlockingQueue<Chunk> buffer = new ArrayBlockingQueue<>(SHARD_BUFFER_CHUNKS);
+        private final Poller poller = newPoller();
+        private String changeId;
+        private Thread thread;
+        // Start of the last query that found nothing new, every change committed before it has been read
+        private volatile long caughtUpSince = Long.MIN_VALUE;
+        // Only used by the merging thread: the chunk it is taking changes from
+        private Chunk head;
+        private int headIndex;
+
+        Shard(List<String> labels, String from) {
+            this.labels = labels;
+            this.changeId = from;
+        }
+
+        /**
+         * Whether there is a change to merge, moving on to the next chunk if the current one is used up
+         */
+        boolean hasHead() {
+            if (head != null && headIndex < head.size) {
+                return true;
+            }
+            head = buffer.poll();
+            headIndex = 0;
+            return head != null;
+        }
+
+        long headKey() {
+            return head.keys[headIndex];
+        }
+
+        void fetch() {
+            try (var cursor = source.openCursor(labels)) {
+                while (!isStopping()) {
+                    var query = new CdcQueryEvent();
+                    query.begin();
+                    var queryStart = System.nanoTime();
+                    var count = 0;
+                    var chunk = new Chunk();
+                    poller.queryStarted();
+                    try {
+                        var res = cursor.query(changeId, poller.limit());
+                        var hasNext = res.hasNext();
+                        query.firstRecord(queryStart);
+                        for (; hasNext; hasNext = res.hasNext()) {
+                            var record = res.next();
+                            if (count == 0) {
+                                poller.received(CDCClient.commitTimeMicros(record));
+                            }
+                            chunk.add(record);
+                            changeId = record.get("id").asString();
+                            count++;
+                            if (chunk.isFull()) {
+                                if (!offer(chunk)) {
+                                    return;
+                                }
+                                chunk = new Chunk();
+                            }
+                        }
+                    } catch (TransientException e) {
+                        System.err.println("Ignoring transient exception at " + changeId + ": " + e.getMessage());
+                    }
+                    if (chunk.size > 0 && !offer(chunk)) {
+                        return;
+                    }
+                    query.end();
+                    if (query.shouldCommit()) {
+                        // Records are only decoded on the merging thread, so their size is not known here
+                        query.labels = String.join(",", labels);
+                        query.records = count;
+                        query.commit();
+                    }
+                    if (count == 0) {
+                        caughtUpSince = queryStart;
+                    }
+                    poller.pause(count);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * @return false if the client was stopped while waiting for room
+         */
+        private boolean offer(Chunk chunk) throws InterruptedException {
+            chunk.receivedNanos = System.nanoTime();
+            while (!buffer.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (isStopping()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
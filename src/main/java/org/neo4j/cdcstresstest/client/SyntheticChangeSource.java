@@ -0,0 +1,282 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalRecord;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process change feed that emits records shaped like db.cdc.query at a configurable rate, so the client side can be
+ * measured without a server or network in the way.
+ * <p>
+ * The feed mimics {@link org.neo4j.cdcstresstest.load.CDCChangeMaker}: transactions alternate between creating
+ * a batch of nodes and deleting them again. Every record is a pure function of its position in the feed, so any
+ * number of cursors can read it independently. Change ids encode that position and are only meaningful to this class.
+ * <p>
+ * Every pair of create and delete transactions uses one of the label_id_n labels, round robin. Cursors for a subset
+ * of the labels skip the transactions of the other labels.
+ */
+public class SyntheticChangeSource implements ChangeSource {
+
+    private static final String ID_PREFIX = "synthetic:";
+    private static final String DATABASE_ID = "7a2ba0a4-0b1e-4cd3-9f3a-5c3e2d1b6a70";
+    private static final List<String> KEYS = List.of("id", "txId", "seq", "event", "metadata");
+    private static final String LABEL_PREFIX = "label_id_";
+
+    private final int changesPerTransaction;
+    private final int maxChangesPerQuery;
+    private final int numLabels;
+    private final Value payload;
+    private final Map<String, Value> metadataTemplate;
+
+    private volatile Timeline timeline = new Timeline(0, 0, 0, 0);
+    // Highest position handed out, used to freeze an unbounded feed when it is stopped
+    private final AtomicLong highestServed = new AtomicLong();
+
+    /**
+     * A feed that emits transactions of 2500 changes, spread over 10 labels, like the default change maker.
+     *
+     * @param payloadBytes Size of the byte array payload property on every node
+     */
+    public SyntheticChangeSource(int payloadBytes) {
+        this(payloadBytes, 2500, 10, 10 * 1000);
+    }
+
+    /**
+     * @param payloadBytes          Size of the byte array payload property on every node
+     * @param changesPerTransaction Number of changes (seq values) per transaction
+     * @param numLabels             Number of distinct label_id_n labels the nodes are spread over
+     * @param maxChangesPerQuery    Upper limit of records returned by a single query
+     */
+    public SyntheticChangeSource(int payloadBytes, int changesPerTransaction, int numLabels, int maxChangesPerQuery) {
+        this.changesPerTransaction = changesPerTransaction;
+        this.maxChangesPerQuery = maxChangesPerQuery;
+        this.numLabels = numLabels;
+        var bytes = new byte[payloadBytes];
+        new Random(42).nextBytes(bytes);
+        this.payload = Values.value(bytes);
+        this.metadataTemplate = Map.of(
+                "executingUser", Values.value("neo4j"),
+                "authenticatedUser", Values.value("neo4j"),
+                "connectionType", Values.value("bolt"),
+                "connectionClient", Values.value("127.0.0.1:51234"),
+                "connectionServer", Values.value("127.0.0.1:7687"),
+                "serverId", Values.value("c4e5d1b2"),
+                "captureMode", Values.value("FULL"),
+                "databaseName", Values.value("neo4j")
+        );
+    }
+
+    /**
+     * Start emitting changes at the given rate, continuing from where the feed was stopped.
+     *
+     * @param changesPerSecond Emission rate, or 0 to make every query return {@code maxChangesPerQuery} records
+     */
+    public void start(int changesPerSecond) {
+        var position = available(System.nanoTime());
+        timeline = new Timeline(position, System.nanoTime(), System.currentTimeMillis(), Math.max(0, changesPerSecond));
+    }
+
+    /**
+     * Stop emitting changes.
+     *
+     * @return The number of changes emitted since {@link #start}
+     */
+    public long stop() {
+        var old = timeline;
+        var position = available(System.nanoTime());
+        timeline = new Timeline(position, 0, 0, 0);
+        return position - old.startPosition;
+    }
+
+    @Override
+    public String current() {
+        return idOf(available(System.nanoTime()));
+    }
+
+    @Override
+    public Cursor openCursor() {
+        return new SyntheticCursor(null);
+    }
+
+    @Override
+    public Cursor openCursor(Collection<String> labels) {
+        var selected = new boolean[numLabels];
+        for (var label : labels) {
+            if (label.startsWith(LABEL_PREFIX)) {
+                var index = Integer.parseInt(label, LABEL_PREFIX.length(), label.length(), 10);
+                if (index < numLabels) {
+                    selected[index] = true;
+                }
+            }
+        }
+        return new SyntheticCursor(selected);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * The number of changes that have been committed at the given time
+     */
+    private long available(long nanoTime) {
+        var t = timeline;
+        if (t.rate == 0) {
+            return t.startNanos == 0 ? t.startPosition : Math.max(t.startPosition, highestServed.get());
+        }
+        return t.startPosition + (nanoTime - t.startNanos) * t.rate / 1_000_000_000L;
+    }
+
+    private static String idOf(long position) {
+        return ID_PREFIX + Long.toHexString(position);
+    }
+
+    private static long positionOf(String id) {
+        if (!id.startsWith(ID_PREFIX)) {
+            throw new IllegalArgumentException("Not a synthetic change id: " + id);
+        }
+        return Long.parseLong(id, ID_PREFIX.length(), id.length(), 16);
+    }
+
+    private int labelAt(long position) {
+        return (int) ((position / changesPerTransaction / 2) % numLabels);
+    }
+
+    private Record recordAt(long position, Timeline t) {
+        var txIndex = position / changesPerTransaction;
+        var seq = position % changesPerTransaction;
+        var commitMillis = t.rate == 0
+                ? System.currentTimeMillis()
+                : t.startMillis + (position - t.startPosition) * 1000 / t.rate;
+        var commitTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(commitMillis), ZoneOffset.UTC);
+
+        // Even transactions create a batch of nodes, odd transactions delete the previous batch
+        var create = txIndex % 2 == 0;
+        var nodeId = create ? position : position - changesPerTransaction;
+        var labels = Values.value(List.of(Values.value(LABEL_PREFIX + labelAt(position))));
+        var state = Values.value(Map.of(
+                "labels", labels,
+                "properties", Values.value(Map.of("payload", payload))
+        ));
+        var event = new HashMap<String, Value>(8);
+        event.put("elementId", Values.value("4:" + DATABASE_ID + ":" + nodeId));
+        event.put("eventType", Values.value("n"));
+        event.put("operation", Values.value(create ? "c" : "d"));
+        event.put("labels", labels);
+        event.put("keys", Values.value(Map.<String, Value>of()));
+        event.put("state", Values.value(create
+                ? Map.of("before", Values.NULL, "after", state)
+                : Map.of("before", state, "after", Values.NULL)));
+
+        var metadata = new HashMap<>(metadataTemplate);
+        metadata.put("txStartTime", Values.value(commitTime.minusNanos(500_000)));
+        metadata.put("txCommitTime", Values.value(commitTime));
+
+        // The driver does not offer a public way to create records, so borrow its own implementation
+        return new InternalRecord(KEYS, new Value[]{
+                Values.value(idOf(position + 1)),
+                Values.value(txIndex + 1),
+                Values.value(seq),
+                Values.value(event),
+                Values.value(metadata)
+        });
+    }
+
+    private record Timeline(long startPosition, long startNanos, long startMillis, long rate) {}
+
+    private class SyntheticCursor implements Cursor {
+        // Indexes of the labels this cursor returns, or null for all of them
+        private final boolean[] selected;
+
+        SyntheticCursor(boolean[] selected) {
+            this.selected = selected;
+        }
+
+        @Override
+        public Iterator<Record> query(String previousId, int limit) {
+            var t = timeline;
+            var max = Math.min(maxChangesPerQuery, limit);
+            var from = positionOf(previousId);
+            var first = skip(from);
+            if (first == Long.MAX_VALUE) {
+                return Collections.emptyIterator();
+            }
+            // A filtering cursor scans past the other labels' transactions, however long they are, so that a query
+            // only comes back empty when the cursor has caught up
+            var end = endOf(first, max);
+            var to = t.rate == 0 && t.startNanos != 0
+                    ? end
+                    : Math.min(available(System.nanoTime()), end);
+            highestServed.accumulateAndGet(to, Math::max);
+            return new Iterator<>() {
+                private long position = first;
+                private int returned;
+
+                @Override
+                public boolean hasNext() {
+                    return position < to && returned < max;
+                }
+
+                @Override
+                public Record next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    var record = recordAt(position, t);
+                    position = skip(position + 1);
+                    returned++;
+                    return record;
+                }
+            };
+        }
+
+        /**
+         * The first position from the given one that this cursor returns, skipping whole transactions
+         */
+        private long skip(long position) {
+            if (selected == null) {
+                return position;
+            }
+            for (var scanned = 0; scanned < numLabels * 2; scanned++) {
+                if (selected[labelAt(position)]) {
+                    return position;
+                }
+                position = (position / changesPerTransaction + 1) * changesPerTransaction;
+            }
+            // None of the labels is selected
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * The position right after the given number of this cursor's changes, starting at one of them
+         */
+        private long endOf(long position, long changes) {
+            while (true) {
+                var transactionEnd = (position / changesPerTransaction + 1) * changesPerTransaction;
+                if (transactionEnd - position >= changes) {
+                    return position + changes;
+                }
+                changes -= transactionEnd - position;
+                position = skip(transactionEnd);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
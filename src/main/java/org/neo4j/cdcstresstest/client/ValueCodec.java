@@ -0,0 +1,198 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Type;
+import org.neo4j.driver.types.TypeSystem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+
+/**
+ * Compact binary encoding of driver {@link Value} trees, covering every type db.cdc.query can return.
+ * Each value is a one byte tag followed by a fixed or length-prefixed body.
+ */
+public final class ValueCodec {
+
+    static final TypeSystem TYPES = TypeSystem.getDefault();
+    static final Type NULL = TYPES.NULL();
+    static final Type BOOLEAN = TYPES.BOOLEAN();
+    static final Type INTEGER = TYPES.INTEGER();
+    static final Type FLOAT = TYPES.FLOAT();
+    static final Type STRING = TYPES.STRING();
+    static final Type BYTES = TYPES.BYTES();
+    static final Type LIST = TYPES.LIST();
+    static final Type MAP = TYPES.MAP();
+    static final Type DATE = TYPES.DATE();
+    static final Type TIME = TYPES.TIME();
+    static final Type LOCAL_TIME = TYPES.LOCAL_TIME();
+    static final Type LOCAL_DATE_TIME = TYPES.LOCAL_DATE_TIME();
+    static final Type DATE_TIME = TYPES.DATE_TIME();
+    static final Type DURATION = TYPES.DURATION();
+    static final Type POINT = TYPES.POINT();
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INTEGER = 3;
+    private static final byte TAG_FLOAT = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_BYTES = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_DATE = 9;
+    private static final byte TAG_TIME = 10;
+    private static final byte TAG_LOCAL_TIME = 11;
+    private static final byte TAG_LOCAL_DATE_TIME = 12;
+    private static final byte TAG_DATE_TIME = 13;
+    private static final byte TAG_DURATION = 14;
+    private static final byte TAG_POINT_2D = 15;
+    private static final byte TAG_POINT_3D = 16;
+
+    private ValueCodec() {
+    }
+
+    /**
+     * Write the value to the buffer.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer is too small, the buffer position is undefined afterwards
+     */
+    public static void encode(Value value, ByteBuffer buffer) {
+        var type = value.type();
+        if (type == NULL) {
+            buffer.put(TAG_NULL);
+        } else if (type == BOOLEAN) {
+            buffer.put(value.asBoolean() ? TAG_TRUE : TAG_FALSE);
+        } else if (type == INTEGER) {
+            buffer.put(TAG_INTEGER).putLong(value.asLong());
+        } else if (type == FLOAT) {
+            buffer.put(TAG_FLOAT).putDouble(value.asDouble());
+        } else if (type == STRING) {
+            buffer.put(TAG_STRING);
+            putString(value.asString(), buffer);
+        } else if (type == BYTES) {
+            var bytes = value.asByteArray();
+            buffer.put(TAG_BYTES).putInt(bytes.length).put(bytes);
+        } else if (type == LIST) {
+            buffer.put(TAG_LIST).putInt(value.size());
+            for (var item : value.values()) {
+                encode(item, buffer);
+            }
+        } else if (type == MAP) {
+            buffer.put(TAG_MAP).putInt(value.size());
+            for (var key : value.keys()) {
+                putString(key, buffer);
+                encode(value.get(key), buffer);
+            }
+        } else if (type == DATE) {
+            buffer.put(TAG_DATE).putLong(value.asLocalDate().toEpochDay());
+        } else if (type == TIME) {
+            var time = value.asOffsetTime();
+            buffer.put(TAG_TIME).putLong(time.toLocalTime().toNanoOfDay()).putInt(time.getOffset().getTotalSeconds());
+        } else if (type == LOCAL_TIME) {
+            buffer.put(TAG_LOCAL_TIME).putLong(value.asLocalTime().toNanoOfDay());
+        } else if (type == LOCAL_DATE_TIME) {
+            var dateTime = value.asLocalDateTime();
+            buffer.put(TAG_LOCAL_DATE_TIME).putLong(dateTime.toEpochSecond(ZoneOffset.UTC)).putInt(dateTime.getNano());
+        } else if (type == DATE_TIME) {
+            var dateTime = value.asZonedDateTime();
+            buffer.put(TAG_DATE_TIME).putLong(dateTime.toEpochSecond()).putInt(dateTime.getNano());
+            putString(dateTime.getZone().getId(), buffer);
+        } else if (type == DURATION) {
+            var duration = value.asIsoDuration();
+            buffer.put(TAG_DURATION)
+                    .putLong(duration.months())
+                    .putLong(duration.days())
+                    .putLong(duration.seconds())
+                    .putInt(duration.nanoseconds());
+        } else if (type == POINT) {
+            var point = value.asPoint();
+            var is3d = !Double.isNaN(point.z());
+            buffer.put(is3d ? TAG_POINT_3D : TAG_POINT_2D).putInt(point.srid()).putDouble(point.x()).putDouble(point.y());
+            if (is3d) {
+                buffer.putDouble(point.z());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode values of type " + type.name());
+        }
+    }
+
+    /**
+     * Read the next value from the buffer.
+     */
+    public static Value decode(ByteBuffer buffer) {
+        var tag = buffer.get();
+        return switch (tag) {
+            case TAG_NULL -> Values.NULL;
+            case TAG_FALSE -> Values.value(false);
+            case TAG_TRUE -> Values.value(true);
+            case TAG_INTEGER -> Values.value(buffer.getLong());
+            case TAG_FLOAT -> Values.value(buffer.getDouble());
+            case TAG_STRING -> Values.value(getString(buffer));
+            case TAG_BYTES -> {
+                var bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                yield Values.value(bytes);
+            }
+            case TAG_LIST -> {
+                var size = buffer.getInt();
+                var items = new Value[size];
+                for (int i = 0; i < size; i++) {
+                    items[i] = decode(buffer);
+                }
+                yield Values.value(items);
+            }
+            case TAG_MAP -> {
+                var size = buffer.getInt();
+                var entries = new HashMap<String, Value>((int) (size / 0.75f) + 1);
+                for (int i = 0; i < size; i++) {
+                    var key = getString(buffer);
+                    entries.put(key, decode(buffer));
+                }
+                yield Values.value(entries);
+            }
+            case TAG_DATE -> Values.value(LocalDate.ofEpochDay(buffer.getLong()));
+            case TAG_TIME -> Values.value(OffsetTime.of(
+                    LocalTime.ofNanoOfDay(buffer.getLong()),
+                    ZoneOffset.ofTotalSeconds(buffer.getInt())));
+            case TAG_LOCAL_TIME -> Values.value(LocalTime.ofNanoOfDay(buffer.getLong()));
+            case TAG_LOCAL_DATE_TIME -> Values.value(LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC));
+            case TAG_DATE_TIME -> {
+                var epochSecond = buffer.getLong();
+                var nano = buffer.getInt();
+                var zone = ZoneId.of(getString(buffer));
+                yield Values.value(ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), zone));
+            }
+            case TAG_DURATION -> Values.isoDuration(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt());
+            case TAG_POINT_2D -> Values.point(buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+            case TAG_POINT_3D -> Values.point(buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            default -> throw new IllegalStateException("Unknown value tag " + tag + " at " + (buffer.position() - 1));
+        };
+    }
+
+    static void putString(String value, ByteBuffer buffer) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (!buffer.hasArray()) {
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        var string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+}
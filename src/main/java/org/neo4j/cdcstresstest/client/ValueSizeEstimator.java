@@ -0,0 +1,96 @@
+package org.neo4j.cdcstresstest.client;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+
+import static org.neo4j.cdcstresstest.client.ValueCodec.BOOLEAN;
+import static org.neo4j.cdcstresstest.client.ValueCodec.BYTES;
+import static org.neo4j.cdcstresstest.client.ValueCodec.DATE;
+import static org.neo4j.cdcstresstest.client.ValueCodec.DATE_TIME;
+import static org.neo4j.cdcstresstest.client.ValueCodec.DURATION;
+import static org.neo4j.cdcstresstest.client.ValueCodec.FLOAT;
+import static org.neo4j.cdcstresstest.client.ValueCodec.INTEGER;
+import static org.neo4j.cdcstresstest.client.ValueCodec.LIST;
+import static org.neo4j.cdcstresstest.client.ValueCodec.LOCAL_DATE_TIME;
+import static org.neo4j.cdcstresstest.client.ValueCodec.LOCAL_TIME;
+import static org.neo4j.cdcstresstest.client.ValueCodec.MAP;
+import static org.neo4j.cdcstresstest.client.ValueCodec.NULL;
+import static org.neo4j.cdcstresstest.client.ValueCodec.POINT;
+import static org.neo4j.cdcstresstest.client.ValueCodec.STRING;
+import static org.neo4j.cdcstresstest.client.ValueCodec.TIME;
+
+/**
+ * Size of records as if written with {@link ValueCodec}, the number of fields followed by every key and its value,
+ * worked out by walking the value tree instead of encoding it.
+ * Strings are measured in UTF-8 without being converted, so nothing is allocated apart from map key iterators.
+ */
+public final class ValueSizeEstimator {
+
+    private ValueSizeEstimator() {
+    }
+
+    public static int sizeOf(Record record) {
+        var size = Integer.BYTES;
+        for (int i = 0; i < record.size(); i++) {
+            size += Integer.BYTES + utf8Length(record.keys().get(i)) + sizeOf(record.get(i));
+        }
+        return size;
+    }
+
+    public static int sizeOf(Value value) {
+        var type = value.type();
+        if (type == NULL || type == BOOLEAN) {
+            return 1;
+        } else if (type == INTEGER || type == FLOAT || type == DATE || type == LOCAL_TIME) {
+            return 1 + Long.BYTES;
+        } else if (type == STRING) {
+            return 1 + Integer.BYTES + utf8Length(value.asString());
+        } else if (type == BYTES) {
+            return 1 + Integer.BYTES + value.asByteArray().length;
+        } else if (type == LIST) {
+            var size = 1 + Integer.BYTES;
+            for (int i = 0; i < value.size(); i++) {
+                size += sizeOf(value.get(i));
+            }
+            return size;
+        } else if (type == MAP) {
+            var size = 1 + Integer.BYTES;
+            for (var key : value.keys()) {
+                size += Integer.BYTES + utf8Length(key) + sizeOf(value.get(key));
+            }
+            return size;
+        } else if (type == TIME || type == LOCAL_DATE_TIME) {
+            return 1 + Long.BYTES + Integer.BYTES;
+        } else if (type == DATE_TIME) {
+            return 1 + Long.BYTES + Integer.BYTES + Integer.BYTES + utf8Length(value.asZonedDateTime().getZone().getId());
+        } else if (type == DURATION) {
+            return 1 + 3 * Long.BYTES + Integer.BYTES;
+        } else if (type == POINT) {
+            return 1 + Integer.BYTES + (Double.isNaN(value.asPoint().z()) ? 2 : 3) * Double.BYTES;
+        }
+        throw new IllegalArgumentException("Cannot size values of type " + type.name());
+    }
+
+    /**
+     * Number of bytes the string takes in UTF-8, without encoding it
+     */
+    static int utf8Length(String string) {
+        var length = string.length();
+        var bytes = length;
+        for (int i = 0; i < length; i++) {
+            var c = string.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    // A surrogate pair is two chars and four bytes
+                    bytes += 2;
+                    i++;
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,24 @@
+package org.neo4j.cdcstresstest.client.checkpoint;
+
+import java.io.Serializable;
+
+/**
+ * What checkpointing cost during one run.
+ *
+ * @param syncs       Number of checkpoints written and forced to disk
+ * @param syncTime    Time spent writing and forcing checkpoints, summed (ms)
+ * @param maxSyncTime Longest single write and force (us)
+ * @param changes     Number of changes covered by the checkpoints
+ * @param maxGroup    Most changes covered by a single checkpoint
+ */
+public record CheckpointStats(long syncs, long syncTime, long maxSyncTime, long changes, long maxGroup) implements Serializable {
+
+    public static final CheckpointStats NONE = new CheckpointStats(0, 0, 0, 0, 0);
+
+    /**
+     * Average number of changes made durable by one sync
+     */
+    public float averageGroup() {
+        return syncs == 0 ? 0 : changes / (float) syncs;
+    }
+}
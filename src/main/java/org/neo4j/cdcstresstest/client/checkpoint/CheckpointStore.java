@@ -0,0 +1,252 @@
+package org.neo4j.cdcstresstest.client.checkpoint;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps track of how far a client has processed its changes and saves that position to a local file, so a client
+ * can resume from it instead of starting over.
+ * <p>
+ * Readers finish changes out of order, so the position to resume from is the low watermark: the last change before
+ * the first one that has not been processed. The fetcher numbers changes as it receives them and readers set the
+ * bit of every change they finish in a window of {@link #WINDOW} bits. A checkpointer thread moves the watermark over
+ * the finished bits and clears them for reuse; the fetcher may not get further ahead of the watermark than the window.
+ * <p>
+ * Checkpoints are group committed: the checkpointer saves the watermark once per interval, so one fsync makes all
+ * changes finished in that interval durable. The file has two slots that are written in turn, each with a sequence
+ * number and a checksum, so a write torn by a crash leaves the previous checkpoint intact.
+ */
+public class CheckpointStore implements AutoCloseable {
+
+    private static final int WINDOW_BITS = 20;
+    private static final int WINDOW = 1 << WINDOW_BITS;
+    private static final int SLOT_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final long syncIntervalMs;
+    private final boolean resume;
+    private final FileChannel channel;
+    private final ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+    private final CRC32C checksum = new CRC32C();
+
+    private final AtomicLongArray finished = new AtomicLongArray(WINDOW / Long.SIZE);
+    // Change id of every position in the window, written by the fetcher
+    private final String[] ids = new String[WINDOW];
+    // Every position below the watermark has been processed, only moved by the checkpointer
+    private volatile long watermark;
+    private String watermarkId;
+    private String savedId;
+    private long savedWatermark;
+    private long sequence;
+
+    private Thread checkpointer;
+    private volatile boolean running;
+    // Only touched by the checkpointer while it runs
+    private long syncs;
+    private long syncNanos;
+    private long maxSyncNanos;
+    private long maxGroup;
+
+    /**
+     * @param file           Where to keep the checkpoint, created if it does not exist
+     * @param syncIntervalMs Time between checkpoints, 0 to save whenever the watermark moves
+     * @param resume         Whether {@link #begin} continues from the saved checkpoint rather than the given id
+     */
+    public CheckpointStore(Path file, long syncIntervalMs, boolean resume) {
+        this.syncIntervalMs = syncIntervalMs;
+        this.resume = resume;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.savedId = load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open checkpoint file " + file, e);
+        }
+    }
+
+    /**
+     * The id of the last saved checkpoint, or null if there is none
+     */
+    public String saved() {
+        return savedId;
+    }
+
+    /**
+     * Start tracking a run and saving checkpoints in the background.
+     *
+     * @param current The id the client was asked to start from
+     * @return The id the client should start from: the saved checkpoint when resuming, the given id otherwise
+     */
+    public String begin(String current) {
+        var from = resume && savedId != null ? savedId : current;
+        if (!from.equals(current)) {
+            System.out.println("Resuming from checkpoint " + from);
+        }
+        for (int i = 0; i < finished.length(); i++) {
+            finished.set(i, 0);
+        }
+        watermark = 0;
+        watermarkId = from;
+        savedWatermark = 0;
+        syncs = 0;
+        syncNanos = 0;
+        maxSyncNanos = 0;
+        maxGroup = 0;
+        running = true;
+        checkpointer = new Thread(this::checkpointLoop, "Checkpointer");
+        checkpointer.setDaemon(true);
+        checkpointer.start();
+        return from;
+    }
+
+    /**
+     * Register a change before it is handed to the readers. Only called by the fetcher.
+     *
+     * @return false if the change is too far ahead of the watermark, try again once readers caught up
+     */
+    public boolean published(long position, String id) {
+        if (position - watermark >= WINDOW) {
+            return false;
+        }
+        ids[(int) (position & (WINDOW - 1))] = id;
+        return true;
+    }
+
+    /**
+     * Mark a change as processed. Called by any reader.
+     */
+    public void processed(long position) {
+        var bit = 1L << position;
+        finished.getAndAccumulate((int) ((position >>> 6) & (finished.length() - 1)), bit, (bits, mask) -> bits | mask);
+    }
+
+    /**
+     * Stop the background checkpoints and save the final watermark.
+     */
+    public CheckpointStats finish() throws InterruptedException {
+        running = false;
+        checkpointer.join();
+        advance();
+        save();
+        return new CheckpointStats(syncs, syncNanos / 1000 / 1000, maxSyncNanos / 1000, savedWatermark, maxGroup);
+    }
+
+    private void checkpointLoop() {
+        while (running) {
+            var moved = advance();
+            save();
+            if (syncIntervalMs > 0) {
+                LockSupport.parkNanos(syncIntervalMs * 1000 * 1000);
+            } else if (!moved) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Move the watermark over the changes that have been processed, a word of the window at a time
+     *
+     * @return whether the watermark moved
+     */
+    private boolean advance() {
+        var start = watermark;
+        var position = start;
+        while (true) {
+            var word = (int) ((position >>> 6) & (finished.length() - 1));
+            var bit = (int) (position & 63);
+            var run = Math.min(Long.numberOfTrailingZeros(~(finished.get(word) >>> bit)), Long.SIZE - bit);
+            if (run == 0) {
+                break;
+            }
+            var mask = run == Long.SIZE ? -1L : ((1L << run) - 1) << bit;
+            finished.getAndAccumulate(word, ~mask, (bits, keep) -> bits & keep);
+            position += run;
+            if (bit + run < Long.SIZE) {
+                break;
+            }
+        }
+        if (position == start) {
+            return false;
+        }
+        watermarkId = ids[(int) ((position - 1) & (WINDOW - 1))];
+        // Publish the cleared bits before the fetcher may reuse them
+        watermark = position;
+        return true;
+    }
+
+    private void save() {
+        if (watermarkId.equals(savedId)) {
+            return;
+        }
+        var bytes = watermarkId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > SLOT_SIZE - Long.BYTES - 2 * Integer.BYTES) {
+            throw new IllegalStateException("Change id too long to checkpoint: " + watermarkId);
+        }
+        var start = System.nanoTime();
+        sequence++;
+        slot.clear();
+        slot.putLong(sequence).putInt(bytes.length).put(bytes);
+        checksum.reset();
+        checksum.update(slot.array(), 0, slot.position());
+        slot.putInt((int) checksum.getValue()).flip();
+        try {
+            channel.write(slot, (sequence % 2) * SLOT_SIZE);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save checkpoint", e);
+        }
+        var elapsed = System.nanoTime() - start;
+        syncs++;
+        syncNanos += elapsed;
+        maxSyncNanos = Math.max(maxSyncNanos, elapsed);
+        maxGroup = Math.max(maxGroup, watermark - savedWatermark);
+        savedWatermark = watermark;
+        savedId = watermarkId;
+    }
+
+    /**
+     * Read the newest intact slot
+     */
+    private String load() throws IOException {
+        String newest = null;
+        for (int i = 0; i < 2; i++) {
+            slot.clear();
+            channel.read(slot, (long) i * SLOT_SIZE);
+            slot.flip();
+            if (slot.remaining() < Long.BYTES + Integer.BYTES) {
+                continue;
+            }
+            var slotSequence = slot.getLong();
+            var length = slot.getInt();
+            if (length < 0 || length > slot.remaining() - Integer.BYTES) {
+                continue;
+            }
+            checksum.reset();
+            checksum.update(slot.array(), 0, Long.BYTES + Integer.BYTES + length);
+            var id = new String(slot.array(), Long.BYTES + Integer.BYTES, length, StandardCharsets.UTF_8);
+            slot.position(slot.position() + length);
+            if (slot.getInt() == (int) checksum.getValue() && slotSequence > sequence) {
+                sequence = slotSequence;
+                newest = id;
+            }
+        }
+        return newest;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close checkpoint file: " + e.getMessage());
+        }
+    }
+}
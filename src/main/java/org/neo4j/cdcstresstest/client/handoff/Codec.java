@@ -0,0 +1,16 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding used to move items out of the heap, e.g. by the {@link SpillJournal}.
+ */
+public interface Codec<T> {
+
+    /**
+     * @throws java.nio.BufferOverflowException if the item does not fit, callers retry with a larger buffer
+     */
+    void encode(T item, ByteBuffer buffer);
+
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,45 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes records from the single fetcher thread to the reader threads.
+ */
+public interface HandOff<T> {
+
+    /**
+     * Publish an item. Only called from the fetcher thread.
+     *
+     * @return false if there was no room for the item
+     */
+    boolean offer(T item);
+
+    /**
+     * Take the next item, waiting at most the given time for one to be published.
+     *
+     * @return The next item, or null if none was published in time
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * The hand-off a given reader thread takes its items from. All readers share the same one unless
+     * the hand-off partitions items, like {@link LanedHandOff}.
+     */
+    default HandOff<T> forReader(int reader) {
+        return this;
+    }
+
+    /**
+     * The number of items waiting to be taken
+     */
+    int size();
+
+    int capacity();
+
+    /**
+     * Cumulative counters of records that did not fit in memory and were written to disk instead
+     */
+    default SpillStats spillStats() {
+        return SpillStats.NONE;
+    }
+}
@@ -0,0 +1,127 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Splits items over a fixed number of lanes by key, with exactly one reader per lane. Items with the same key always
+ * land in the same lane and are taken in the order they were offered, so per-key order survives parallel reading.
+ * <p>
+ * A full lane holds up the fetcher, even if other lanes have room: skipping it would break the ordering.
+ * <p>
+ * Readers that take from the hand-off as a whole, like a {@link SpillingHandOff} around it, go round the lanes
+ * instead. That works with any number of readers, but per-key order only holds with one reader.
+ */
+public class LanedHandOff<T> implements HandOff<T> {
+
+    private static final long POLL_PARK_NANOS = 50_000;
+
+    private final List<HandOff<T>> lanes;
+    private final ToIntFunction<T> keyHash;
+    // Lane the next poll of the whole hand-off starts at, racy between readers but only to spread them out
+    private int nextLane;
+
+    /**
+     * @param numLanes Number of lanes, the client needs the same number of reader threads
+     * @param laneFactory Creates the hand-off for each lane
+     * @param keyHash  Hash of the key that decides the lane of an item
+     */
+    public LanedHandOff(int numLanes, IntFunction<HandOff<T>> laneFactory, ToIntFunction<T> keyHash) {
+        if (numLanes < 1) {
+            throw new IllegalArgumentException("Need at least one lane, got " + numLanes);
+        }
+        this.lanes = new ArrayList<>(numLanes);
+        for (int i = 0; i < numLanes; i++) {
+            lanes.add(laneFactory.apply(i));
+        }
+        this.keyHash = keyHash;
+    }
+
+    public int numLanes() {
+        return lanes.size();
+    }
+
+    @Override
+    public boolean offer(T item) {
+        var hash = keyHash.applyAsInt(item);
+        // Spread the high bits, element ids often differ only at the end
+        hash ^= hash >>> 16;
+        return lanes.get(Math.floorMod(hash, lanes.size())).offer(item);
+    }
+
+    /**
+     * Take the next item of any lane, starting at a different lane every time so none of them is starved
+     */
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            var first = nextLane;
+            for (int i = 0; i < lanes.size(); i++) {
+                var lane = (first + i) % lanes.size();
+                var next = lanes.get(lane).poll(0, TimeUnit.NANOSECONDS);
+                if (next != null) {
+                    nextLane = (lane + 1) % lanes.size();
+                    return next;
+                }
+            }
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            LockSupport.parkNanos(Math.min(remaining, POLL_PARK_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public HandOff<T> forReader(int reader) {
+        if (reader < 0 || reader >= lanes.size()) {
+            throw new IllegalArgumentException("Reader " + reader + " has no lane, there are only " + lanes.size());
+        }
+        return lanes.get(reader);
+    }
+
+    @Override
+    public int size() {
+        var size = 0;
+        for (var lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        var capacity = 0;
+        for (var lane : lanes) {
+            capacity += lane.capacity();
+        }
+        return capacity;
+    }
+
+    @Override
+    public SpillStats spillStats() {
+        var records = 0L;
+        var bytes = 0L;
+        var time = 0L;
+        for (var lane : lanes) {
+            var stats = lane.spillStats();
+            records += stats.records();
+            bytes += stats.bytes();
+            time += stats.time();
+        }
+        return new SpillStats(records, bytes, time);
+    }
+
+    @Override
+    public String toString() {
+        return "laned(" + lanes.size() + " x " + lanes.getFirst() + ")";
+    }
+}
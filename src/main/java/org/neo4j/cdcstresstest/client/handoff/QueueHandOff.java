@@ -0,0 +1,49 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The original hand-off: a bounded queue that readers poll, sleeping 10ms whenever it is empty.
+ */
+public class QueueHandOff<T> implements HandOff<T> {
+
+    private static final int SLEEP_MS = 10;
+
+    private final ArrayBlockingQueue<T> queue;
+    private final int capacity;
+
+    public QueueHandOff(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(T item) {
+        return queue.offer(item);
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var next = queue.poll();
+        if (next == null) {
+            Thread.sleep(Math.min(SLEEP_MS, unit.toMillis(timeout)));
+        }
+        return next;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "queue(" + capacity + ")";
+    }
+}
@@ -0,0 +1,114 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated single-producer / multi-consumer ring buffer in the style of the Disruptor's work queue.
+ * <p>
+ * Every slot carries a sequence number. The slot for position {@code p} is free for the fetcher when its sequence
+ * is {@code p}, and holds a published item when its sequence is {@code p + 1}. Readers claim positions by
+ * advancing a shared cursor with a CAS, so there are no locks on the hot path and every item goes to exactly one reader.
+ */
+public class RingBufferHandOff<T> implements HandOff<T> {
+
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final WaitStrategy.Type waitStrategyType;
+
+    // Next position the fetcher publishes to. Only written by the fetcher, read by others for size()
+    private final AtomicLong producerCursor = new AtomicLong();
+    // Next position a reader will claim
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    public RingBufferHandOff(int capacity, WaitStrategy.Type waitStrategy) {
+        var size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.entries = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.waitStrategyType = waitStrategy;
+        this.waitStrategy = waitStrategy.create();
+    }
+
+    @Override
+    public boolean offer(T item) {
+        var position = producerCursor.getPlain();
+        var index = (int) position & mask;
+        if (sequences.getAcquire(index) != position) {
+            // A reader has not finished taking the item a full lap ago
+            return false;
+        }
+        entries[index] = item;
+        sequences.setRelease(index, position + 1);
+        producerCursor.setRelease(position + 1);
+        waitStrategy.signalAll();
+        return true;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var next = tryPoll();
+        if (next != null) {
+            return next;
+        }
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (System.nanoTime() < deadline) {
+            waitStrategy.waitFor(this::available, deadline);
+            next = tryPoll();
+            if (next != null) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T tryPoll() {
+        while (true) {
+            var position = consumerCursor.get();
+            var index = (int) position & mask;
+            var sequence = sequences.getAcquire(index);
+            if (sequence == position + 1) {
+                if (consumerCursor.compareAndSet(position, position + 1)) {
+                    var item = (T) entries[index];
+                    entries[index] = null;
+                    // Free the slot for the fetcher's next lap
+                    sequences.setRelease(index, position + entries.length);
+                    return item;
+                }
+            } else if (sequence <= position) {
+                return null;
+            }
+            // Another reader claimed this position first, try the next one
+        }
+    }
+
+    private boolean available() {
+        var position = consumerCursor.get();
+        return sequences.getAcquire((int) position & mask) == position + 1;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, producerCursor.getAcquire() - consumerCursor.get());
+    }
+
+    @Override
+    public int capacity() {
+        return entries.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ring(" + entries.length + ", " + waitStrategyType + ")";
+    }
+}
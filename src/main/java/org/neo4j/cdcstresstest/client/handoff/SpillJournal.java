@@ -0,0 +1,170 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only overflow log on memory-mapped segment files. A single writer appends length-prefixed items,
+ * any number of readers drain them in the order they were written. Fully read segments are deleted.
+ */
+public class SpillJournal<T> implements AutoCloseable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Codec<T> codec;
+
+    // Writer state, only touched by the appending thread
+    private Segment writeSegment;
+    private int segmentCount;
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private volatile long records;
+    private volatile long bytes;
+    private volatile long time;
+
+    // Reader state, guarded by this
+    private Segment readSegment;
+    private int readPosition;
+    private volatile long recordsRead;
+
+    /**
+     * @param directory   Where to create the segment files
+     * @param segmentSize Size of each segment file in bytes, larger items get a segment of their own
+     */
+    public SpillJournal(Path directory, int segmentSize, Codec<T> codec) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+    }
+
+    /**
+     * Append an item. Only called from a single thread.
+     */
+    public void append(T item) {
+        var start = System.nanoTime();
+        var length = encode(item);
+        if (writeSegment == null || writeSegment.buffer.remaining() < Integer.BYTES + length) {
+            roll(Integer.BYTES + length);
+        }
+        var buffer = writeSegment.buffer;
+        buffer.putInt(length).put(scratch);
+        // Publish the bytes to the readers
+        writeSegment.limit = buffer.position();
+        records++;
+        bytes += Integer.BYTES + length;
+        time += System.nanoTime() - start;
+    }
+
+    /**
+     * Take the oldest unread item.
+     *
+     * @return The item, or null if everything written so far has been read
+     */
+    public synchronized T poll() {
+        if (readSegment == null) {
+            return null;
+        }
+        while (true) {
+            // Read next before limit: a segment's limit is final once its successor is linked
+            var next = readSegment.next;
+            if (readPosition < readSegment.limit) {
+                var view = readSegment.buffer.duplicate().position(readPosition);
+                var length = view.getInt();
+                var item = codec.decode(view.limit(view.position() + length));
+                readPosition += Integer.BYTES + length;
+                recordsRead++;
+                return item;
+            }
+            if (next == null) {
+                return null;
+            }
+            readSegment.delete();
+            readSegment = next;
+            readPosition = 0;
+        }
+    }
+
+    /**
+     * True if every item that was appended has been read
+     */
+    public boolean isEmpty() {
+        return recordsRead == records;
+    }
+
+    public long pending() {
+        return records - recordsRead;
+    }
+
+    public SpillStats stats() {
+        return new SpillStats(records, bytes, time);
+    }
+
+    private int encode(T item) {
+        while (true) {
+            try {
+                scratch.clear();
+                codec.encode(item, scratch);
+                scratch.flip();
+                return scratch.remaining();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private void roll(int minimumSize) {
+        var file = directory.resolve("spill-" + segmentCount++ + ".seg");
+        var size = Math.max(segmentSize, minimumSize);
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var segment = new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            file.toFile().deleteOnExit();
+            if (writeSegment == null) {
+                synchronized (this) {
+                    readSegment = segment;
+                    readPosition = 0;
+                }
+            } else {
+                writeSegment.next = segment;
+            }
+            writeSegment = segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spill segment " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (var segment = readSegment; segment != null; segment = segment.next) {
+            segment.delete();
+        }
+        readSegment = null;
+        writeSegment = null;
+    }
+
+    private static class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private volatile int limit;
+        private volatile Segment next;
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        void delete() {
+            try {
+                // The mapping stays valid until the buffer is collected, deleting only unlinks the file
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete spill segment " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
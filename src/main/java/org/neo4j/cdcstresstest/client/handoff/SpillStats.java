@@ -0,0 +1,19 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.io.Serializable;
+
+/**
+ * Cumulative counters of a {@link SpillJournal}.
+ *
+ * @param records Number of records written to disk
+ * @param bytes   Number of bytes written to disk, including length prefixes
+ * @param time    Time the fetcher spent encoding and writing to disk (ns)
+ */
+public record SpillStats(long records, long bytes, long time) implements Serializable {
+
+    public static final SpillStats NONE = new SpillStats(0, 0, 0);
+
+    public SpillStats minus(SpillStats other) {
+        return new SpillStats(records - other.records, bytes - other.bytes, time - other.time);
+    }
+}
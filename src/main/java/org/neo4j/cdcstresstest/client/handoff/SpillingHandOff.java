@@ -0,0 +1,95 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an in-memory hand-off with a {@link SpillJournal}, so the fetcher never has to wait for slow readers.
+ * <p>
+ * Once the in-memory hand-off is full, every new item goes to the journal until the readers have drained it.
+ * Readers empty the in-memory hand-off before the journal, which keeps items in the order they were offered.
+ */
+public class SpillingHandOff<T> implements HandOff<T> {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long SPILLING_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final HandOff<T> memory;
+    private final SpillJournal<T> journal;
+    private volatile boolean spilling;
+
+    /**
+     * Spill into 64MB segments in a temporary directory.
+     */
+    public SpillingHandOff(HandOff<T> memory, Codec<T> codec) {
+        this(memory, createJournal(codec));
+    }
+
+    public SpillingHandOff(HandOff<T> memory, SpillJournal<T> journal) {
+        this.memory = memory;
+        this.journal = journal;
+    }
+
+    private static <T> SpillJournal<T> createJournal(Codec<T> codec) {
+        try {
+            var directory = Files.createTempDirectory("cdc-spill");
+            directory.toFile().deleteOnExit();
+            return new SpillJournal<>(directory, DEFAULT_SEGMENT_SIZE, codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spill directory", e);
+        }
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (spilling && journal.isEmpty()) {
+            // Readers caught up with the journal, and only this thread appends to it
+            spilling = false;
+        }
+        if (!spilling) {
+            if (memory.offer(item)) {
+                return true;
+            }
+            spilling = true;
+        }
+        journal.append(item);
+        return true;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var next = memory.poll(0, unit);
+        if (next != null) {
+            return next;
+        }
+        next = journal.poll();
+        if (next != null) {
+            return next;
+        }
+        // While spilling, new items go to the journal rather than to memory, so only wait briefly
+        var wait = spilling ? Math.min(unit.toNanos(timeout), SPILLING_WAIT_NANOS) : unit.toNanos(timeout);
+        return memory.poll(wait, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int size() {
+        return memory.size() + (int) Math.min(Integer.MAX_VALUE, journal.pending());
+    }
+
+    @Override
+    public int capacity() {
+        return memory.capacity();
+    }
+
+    @Override
+    public SpillStats spillStats() {
+        return journal.stats();
+    }
+
+    @Override
+    public String toString() {
+        return "spilling(" + memory + ")";
+    }
+}
@@ -0,0 +1,104 @@
+package org.neo4j.cdcstresstest.client.handoff;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a reader waits for the fetcher to publish into a {@link RingBufferHandOff}. The strategies trade CPU time
+ * for hand-off latency, from burning a core per reader (busy spin) to sleeping on a lock until signalled (blocking).
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait until {@code available} might have become true or the deadline has passed. Spurious returns are allowed,
+     * callers re-check.
+     */
+    void waitFor(BooleanSupplier available, long deadlineNanos) throws InterruptedException;
+
+    /**
+     * Called by the fetcher after every publish.
+     */
+    void signalAll();
+
+    enum Type {
+        BUSY_SPIN, YIELD, PARK, BLOCKING;
+
+        public WaitStrategy create() {
+            return switch (this) {
+                case BUSY_SPIN -> (NonBlocking) (available, deadline) -> Thread.onSpinWait();
+                case YIELD -> (NonBlocking) (available, deadline) -> Thread.yield();
+                case PARK -> new Park();
+                case BLOCKING -> new Blocking();
+            };
+        }
+    }
+
+    /**
+     * Strategies that never sleep don't need to be woken up.
+     */
+    interface NonBlocking extends WaitStrategy {
+        @Override
+        default void signalAll() {
+        }
+    }
+
+    final class Park implements NonBlocking {
+        private static final long PARK_NANOS = 50_000;
+
+        @Override
+        public void waitFor(BooleanSupplier available, long deadlineNanos) throws InterruptedException {
+            LockSupport.parkNanos(Math.min(PARK_NANOS, deadlineNanos - System.nanoTime()));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        // Lets the fetcher skip taking the lock when nobody is waiting
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public void waitFor(BooleanSupplier available, long deadlineNanos) throws InterruptedException {
+            // Register before looking again: a publish the fetcher made before it could see this waiter is found by
+            // the re-check, any later one signals
+            waiters.incrementAndGet();
+            try {
+                if (available.getAsBoolean()) {
+                    return;
+                }
+                lock.lock();
+                try {
+                    if (!available.getAsBoolean()) {
+                        published.awaitNanos(deadlineNanos - System.nanoTime());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            // The publish is a release store, which the read of waiters may overtake. Without the fence the fetcher
+            // could see nobody waiting while a reader that just registered still sees the slot empty and parks.
+            VarHandle.fullFence();
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
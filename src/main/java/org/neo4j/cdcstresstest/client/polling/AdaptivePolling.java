@@ -0,0 +1,65 @@
+package org.neo4j.cdcstresstest.client.polling;
+
+/**
+ * Backs off exponentially while queries come back empty, and sizes both the wait and the query to the rate at which
+ * changes arrive once they do.
+ * <ul>
+ *     <li>An empty query doubles the wait, from {@link #MIN_DELAY_NANOS} up to the maximum delay.</li>
+ *     <li>A query that returned as many changes as it asked for means the fetcher is behind: it queries again right
+ *     away and doubles its limit, up to the maximum limit, so catching up takes fewer round trips.</li>
+ *     <li>Anything in between means the fetcher caught up: the wait is the time the target batch takes to arrive at
+ *     the measured rate, never longer than the maximum delay, and the limit leaves room for twice what is expected.</li>
+ * </ul>
+ * The maximum delay is the latency the policy may add while the feed is quiet, the target batch trades queries per
+ * second against latency while it is busy.
+ *
+ * @param maxDelayMs  Longest wait between queries
+ * @param targetBatch Number of changes a query should return once the fetcher caught up
+ * @param maxLimit    Most changes a single query may ask for
+ */
+public record AdaptivePolling(long maxDelayMs, int targetBatch, int maxLimit) implements PollingPolicy {
+
+    public static final long MIN_DELAY_NANOS = 1000 * 1000;
+    // Weight of the latest query in the rate estimate
+    private static final double RATE_SMOOTHING = 0.3;
+
+    @Override
+    public Schedule newSchedule() {
+        var maxDelayNanos = maxDelayMs * 1000 * 1000;
+        return new Schedule() {
+            private int limit = Math.min(targetBatch * 2, maxLimit);
+            private long delay;
+            // Changes per nanosecond
+            private double rate;
+
+            @Override
+            public int limit() {
+                return limit;
+            }
+
+            @Override
+            public long delayNanos(int records, long sinceLastNanos) {
+                if (sinceLastNanos > 0) {
+                    rate = rate == 0
+                            ? records / (double) sinceLastNanos
+                            : RATE_SMOOTHING * records / sinceLastNanos + (1 - RATE_SMOOTHING) * rate;
+                }
+                if (records >= limit) {
+                    limit = (int) Math.min(limit * 2L, maxLimit);
+                    delay = 0;
+                } else if (records == 0) {
+                    delay = Math.min(Math.max(delay * 2, MIN_DELAY_NANOS), maxDelayNanos);
+                } else {
+                    delay = rate == 0 ? MIN_DELAY_NANOS : (long) Math.min(Math.max(targetBatch / rate, MIN_DELAY_NANOS), maxDelayNanos);
+                    limit = (int) Math.min(Math.max(2 * rate * delay, targetBatch), maxLimit);
+                }
+                return delay;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "adaptive(%dms max, %d target, %d limit)".formatted(maxDelayMs, targetBatch, maxLimit);
+    }
+}
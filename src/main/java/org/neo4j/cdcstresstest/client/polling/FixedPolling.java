@@ -0,0 +1,32 @@
+package org.neo4j.cdcstresstest.client.polling;
+
+import org.neo4j.cdcstresstest.client.ChangeSource;
+
+/**
+ * Waits the same time after every query that returned fewer than a threshold of changes, and asks for all changes.
+ *
+ * @param threshold Queries returning fewer changes than this are followed by the delay
+ * @param delayMs   Time to wait after such a query
+ */
+public record FixedPolling(int threshold, long delayMs) implements PollingPolicy {
+
+    @Override
+    public Schedule newSchedule() {
+        return new Schedule() {
+            @Override
+            public int limit() {
+                return ChangeSource.Cursor.UNLIMITED;
+            }
+
+            @Override
+            public long delayNanos(int records, long sinceLastNanos) {
+                return records < threshold ? delayMs * 1000 * 1000 : 0;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return threshold == 0 ? "tight" : "fixed(%dms below %d)".formatted(delayMs, threshold);
+    }
+}
@@ -0,0 +1,121 @@
+package org.neo4j.cdcstresstest.client.polling;
+
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+import org.neo4j.cdcstresstest.metrics.jfr.IdleBackoffEvent;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a {@link PollingPolicy} for one fetcher and keeps its statistics. A fetcher calls {@link #queryStarted()}
+ * before every query, {@link #received} with the commit time of the first change it returns, and {@link #pause} or
+ * {@link #delayNanos} after it. Not thread safe.
+ */
+public class Poller {
+
+    private final PollingPolicy policy;
+    private final PollingPolicy.Schedule schedule;
+    private final LatencyHistogram addedLatency = new LatencyHistogram();
+    private long queries;
+    private long emptyQueries;
+    private long delayNanos;
+
+    private long queryStartNanos;
+    private long queryStartMicros;
+    // Time between the starts of the last two queries
+    private long lastQueryGap;
+    private long lastDelayNanos;
+    private boolean first;
+
+    public Poller(PollingPolicy policy) {
+        this.policy = policy;
+        this.schedule = policy.newSchedule();
+    }
+
+    /**
+     * Most changes to ask for in the next query
+     */
+    public int limit() {
+        return schedule.limit();
+    }
+
+    public void queryStarted() {
+        var now = System.nanoTime();
+        lastQueryGap = queries == 0 ? 0 : now - queryStartNanos;
+        queryStartNanos = now;
+        queryStartMicros = WallClock.nowMicros();
+        first = true;
+        queries++;
+    }
+
+    /**
+     * Call for every change a query returns, only the first one of every query is looked at
+     *
+     * @param commitMicros Commit time of the change (us since the epoch)
+     */
+    public void received(long commitMicros) {
+        if (first) {
+            first = false;
+            if (lastDelayNanos > 0) {
+                // A change that was committed before the delay started waited for the backlog, not the delay
+                addedLatency.record(Math.min(queryStartMicros - commitMicros, lastDelayNanos / 1000));
+            }
+        }
+    }
+
+    /**
+     * Ask the policy how long to wait after a query, for fetchers that schedule the next query themselves
+     *
+     * @param records Number of changes the query returned
+     */
+    public long delayNanos(int records) {
+        if (records == 0) {
+            emptyQueries++;
+        }
+        lastDelayNanos = schedule.delayNanos(records, lastQueryGap);
+        delayNanos += lastDelayNanos;
+        return lastDelayNanos;
+    }
+
+    /**
+     * Wait as long as the policy asks for after a query
+     *
+     * @param records Number of changes the query returned
+     */
+    public void pause(int records) throws InterruptedException {
+        var delay = delayNanos(records);
+        if (delay > 0) {
+            var backoff = new IdleBackoffEvent();
+            backoff.begin();
+            TimeUnit.NANOSECONDS.sleep(delay);
+            backoff.lastRecords = records;
+            backoff.commit();
+        }
+    }
+
+    public PollingStats stats() {
+        return stats(List.of(this));
+    }
+
+    /**
+     * The statistics of several fetchers of the same client together
+     */
+    public static PollingStats stats(List<Poller> pollers) {
+        if (pollers.isEmpty()) {
+            return PollingStats.NONE;
+        }
+        var addedLatency = new LatencyHistogram();
+        long queries = 0;
+        long emptyQueries = 0;
+        long delayNanos = 0;
+        for (var poller : pollers) {
+            addedLatency.add(poller.addedLatency);
+            queries += poller.queries;
+            emptyQueries += poller.emptyQueries;
+            delayNanos += poller.delayNanos;
+        }
+        return new PollingStats(pollers.getFirst().policy.toString(), queries, emptyQueries, delayNanos / 1000 / 1000,
+                addedLatency.summary());
+    }
+}
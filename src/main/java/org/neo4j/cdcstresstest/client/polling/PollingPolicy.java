@@ -0,0 +1,44 @@
+package org.neo4j.cdcstresstest.client.polling;
+
+/**
+ * Decides how many changes a fetcher asks for and how long it waits between db.cdc.query calls.
+ * Policies are descriptions, every fetcher gets a {@link Schedule} of its own from {@link #newSchedule()}.
+ */
+public interface PollingPolicy {
+
+    /**
+     * Wait 100ms after any query that returned fewer than 100 changes, the original behaviour of the clients
+     */
+    PollingPolicy FIXED = new FixedPolling(100, 100);
+
+    /**
+     * Query again right away, however little the last query returned
+     */
+    PollingPolicy TIGHT = new FixedPolling(0, 0);
+
+    /**
+     * Back off while the feed is quiet and size queries to the rate while it is busy, the default of the clients:
+     * at most 100ms between queries, 500 changes a query once caught up and up to 10k while catching up
+     */
+    PollingPolicy ADAPTIVE = new AdaptivePolling(100, 500, 10*1000);
+
+    Schedule newSchedule();
+
+    /**
+     * The polling state of a single fetcher. Not thread safe.
+     */
+    interface Schedule {
+
+        /**
+         * Most changes to ask for in the next query, {@link org.neo4j.cdcstresstest.client.ChangeSource.Cursor#UNLIMITED} for all of them
+         */
+        int limit();
+
+        /**
+         * @param records      Number of changes the last query returned
+         * @param sinceLastNanos Time from the start of the previous query to the start of the last one, 0 for the first query
+         * @return Time to wait before the next query (ns)
+         */
+        long delayNanos(int records, long sinceLastNanos);
+    }
+}
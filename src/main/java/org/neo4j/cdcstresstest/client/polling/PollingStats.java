@@ -0,0 +1,30 @@
+package org.neo4j.cdcstresstest.client.polling;
+
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+
+import java.io.Serializable;
+
+/**
+ * How a client polled for changes during one run, over all of its fetchers.
+ *
+ * @param policy       Description of the polling policy
+ * @param queries      Number of db.cdc.query calls
+ * @param emptyQueries Number of queries that returned no changes
+ * @param delayTime    Time the fetchers waited between queries, summed (ms)
+ * @param addedLatency How long the oldest change of a query had been waiting for the delay before it to end (us)
+ */
+public record PollingStats(String policy, long queries, long emptyQueries, long delayTime, LatencyHistogram.Summary addedLatency) implements Serializable {
+
+    public static final PollingStats NONE = new PollingStats("none", 0, 0, 0, LatencyHistogram.Summary.NONE);
+
+    /**
+     * Fraction of the queries that returned nothing
+     */
+    public float emptyRatio() {
+        return queries == 0 ? 0 : emptyQueries / (float) queries;
+    }
+
+    public float queriesPerSecond(long durationMs) {
+        return durationMs == 0 ? 0 : queries * 1000f / durationMs;
+    }
+}
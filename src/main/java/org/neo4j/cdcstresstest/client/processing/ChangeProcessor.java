@@ -0,0 +1,63 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+
+import java.util.List;
+
+/**
+ * The work a consumer does with the changes it captured, like transforming them and writing them to a sink.
+ */
+public interface ChangeProcessor {
+
+    /**
+     * Process a batch of changes, in the order they were taken from the hand-off. Called from several threads at
+     * once, each with a batch of its own.
+     */
+    void process(List<ChangeEvent> changes);
+
+    /**
+     * Clear the statistics of the previous run
+     */
+    default void reset() {
+    }
+
+    /**
+     * What the processor wrote this run, if it writes anywhere
+     */
+    default SinkStats sinkStats() {
+        return SinkStats.NONE;
+    }
+
+    /**
+     * Process every batch with this processor and then with the given one, e.g. to write changes after transforming them
+     */
+    default ChangeProcessor andThen(ChangeProcessor next) {
+        return new Chained(this, next);
+    }
+
+    record Chained(ChangeProcessor first, ChangeProcessor second) implements ChangeProcessor {
+
+        @Override
+        public void process(List<ChangeEvent> changes) {
+            first.process(changes);
+            second.process(changes);
+        }
+
+        @Override
+        public void reset() {
+            first.reset();
+            second.reset();
+        }
+
+        @Override
+        public SinkStats sinkStats() {
+            var stats = second.sinkStats();
+            return stats == SinkStats.NONE ? first.sinkStats() : stats;
+        }
+
+        @Override
+        public String toString() {
+            return first + " then " + second;
+        }
+    }
+}
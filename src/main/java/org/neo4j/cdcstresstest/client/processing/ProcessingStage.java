@@ -0,0 +1,191 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.WallClock;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs a {@link ChangeProcessor} on a work-stealing pool, so processing happens apart from the readers that take
+ * changes from the hand-off.
+ * <p>
+ * Readers collect up to {@link #batchSize} changes, as many as are waiting, and {@link #submit} them as one batch.
+ * Only a limited number of batches may wait for the pool; beyond that readers block, the hand-off fills up and the
+ * fetcher feels the backpressure. A change counts as processed once the processor returns; a batch the processor
+ * throws on is counted as failed and, like a processed one, does not hold back the checkpoint.
+ * <p>
+ * The pool threads live until the stage is closed, which the client that owns the stage does once it is closed itself.
+ */
+public class ProcessingStage implements AutoCloseable {
+
+    private static final long QUIESCENCE_TIMEOUT_S = 10;
+
+    private final ChangeProcessor processor;
+    private final int batchSize;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final Semaphore room;
+
+    // Per run, updated from the pool threads
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder readerBlockedNanos = new LongAdder();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final AtomicInteger maxBacklog = new AtomicInteger();
+    private final AtomicLong lastCommitMicros = new AtomicLong();
+    private LatencyHistogram processLatency = new LatencyHistogram();
+
+    /**
+     * @param batchSize         Most changes handed to the processor at once, 1 to process them one by one
+     * @param parallelism       Number of pool threads
+     * @param maxWaitingBatches Batches that may wait for a pool thread before readers block
+     */
+    public ProcessingStage(ChangeProcessor processor, int batchSize, int parallelism, int maxWaitingBatches) {
+        this.processor = processor;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+        this.room = new Semaphore(parallelism + maxWaitingBatches);
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Clear the statistics of the previous run
+     */
+    public void reset() {
+        processed.reset();
+        batches.reset();
+        failed.reset();
+        busyNanos.reset();
+        readerBlockedNanos.reset();
+        backlog.set(0);
+        maxBacklog.set(0);
+        lastCommitMicros.set(0);
+        processor.reset();
+        synchronized (this) {
+            processLatency = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Hand a batch to the pool, waiting for room if too many batches are waiting already.
+     * The batch belongs to the stage from here on.
+     */
+    public void submit(List<ChangeEvent> batch) throws InterruptedException {
+        submit(batch, processed -> {});
+    }
+
+    /**
+     * @param whenProcessed Called on the pool thread once the processor is done with the batch, also when it failed
+     */
+    public void submit(List<ChangeEvent> batch, Consumer<List<ChangeEvent>> whenProcessed) throws InterruptedException {
+        if (!room.tryAcquire()) {
+            var blockedSince = System.nanoTime();
+            room.acquire();
+            readerBlockedNanos.add(System.nanoTime() - blockedSince);
+        }
+        maxBacklog.accumulateAndGet(backlog.addAndGet(batch.size()), Math::max);
+        pool.execute(() -> process(batch, whenProcessed));
+    }
+
+    private void process(List<ChangeEvent> batch, Consumer<List<ChangeEvent>> whenProcessed) {
+        try {
+            var start = System.nanoTime();
+            processor.process(batch);
+            busyNanos.add(System.nanoTime() - start);
+            var now = WallClock.nowMicros();
+            var latest = 0L;
+            synchronized (this) {
+                for (var change : batch) {
+                    processLatency.record(now - change.commitTimeMicros());
+                    latest = Math.max(latest, change.commitTimeMicros());
+                }
+            }
+            lastCommitMicros.accumulateAndGet(latest, Math::max);
+            processed.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            System.err.println("Processing a batch of " + batch.size() + " changes failed: " + e.getMessage());
+        }
+        try {
+            // Failed changes too, or the checkpoint would stop moving and, a window later, the fetcher with it
+            whenProcessed.accept(batch);
+        } finally {
+            backlog.addAndGet(-batch.size());
+            room.release();
+        }
+    }
+
+    /**
+     * Wait for the batches that were submitted to be processed
+     */
+    public void awaitIdle() {
+        if (!pool.awaitQuiescence(QUIESCENCE_TIMEOUT_S, TimeUnit.SECONDS)) {
+            System.err.println("Processing did not finish within " + QUIESCENCE_TIMEOUT_S + "s, " + backlog.get() + " changes left");
+        }
+    }
+
+    /**
+     * Process the batches that were submitted, then stop the pool threads. The stage cannot take batches afterwards.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(QUIESCENCE_TIMEOUT_S, TimeUnit.SECONDS)) {
+                System.err.println("Processing did not finish within " + QUIESCENCE_TIMEOUT_S + "s, dropping " + backlog.get() + " changes");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long processed() {
+        return processed.sum();
+    }
+
+    /**
+     * Number of changes submitted and not processed yet
+     */
+    public int backlog() {
+        return backlog.get();
+    }
+
+    /**
+     * Commit time of the most recent change processed (us since the epoch)
+     */
+    public long lastCommitMicros() {
+        return lastCommitMicros.get();
+    }
+
+    public synchronized LatencyHistogram.Summary processLatency() {
+        return processLatency.summary();
+    }
+
+    public ProcessingStats stats() {
+        return new ProcessingStats(processor.toString(), parallelism, batches.sum(), failed.sum(), maxBacklog.get(),
+                readerBlockedNanos.sum() / 1000 / 1000, busyNanos.sum() / 1000 / 1000, processor.sinkStats());
+    }
+
+    @Override
+    public String toString() {
+        return "%s x%d, batches of %d".formatted(processor, parallelism, batchSize);
+    }
+}
@@ -0,0 +1,27 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import java.io.Serializable;
+
+/**
+ * Statistics of a {@link ProcessingStage} over one run.
+ *
+ * @param processor          Description of the processor
+ * @param parallelism        Number of pool threads processing batches
+ * @param batches            Number of batches processed
+ * @param failed             Number of changes in batches the processor failed on
+ * @param maxBacklog         Largest number of changes handed to the stage and not processed yet
+ * @param readerBlockedTime  Time the readers spent waiting for the stage to take another batch, summed (ms)
+ * @param busyTime           Time the pool threads spent processing, summed (ms)
+ * @param sink               What the processor wrote to a local sink, if it has one
+ */
+public record ProcessingStats(String processor, int parallelism, long batches, long failed, int maxBacklog, long readerBlockedTime, long busyTime, SinkStats sink) implements Serializable {
+
+    public static final ProcessingStats NONE = new ProcessingStats("none", 0, 0, 0, 0, 0, 0, SinkStats.NONE);
+
+    /**
+     * Fraction of the pool's time spent processing over the given wall-clock time
+     */
+    public float utilization(long durationMs) {
+        return parallelism == 0 || durationMs == 0 ? 0 : busyTime / (float) (durationMs * parallelism);
+    }
+}
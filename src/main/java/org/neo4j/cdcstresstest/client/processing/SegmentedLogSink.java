@@ -0,0 +1,289 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+import org.neo4j.cdcstresstest.client.ChangeEventCodec;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes changes to an append-only log of segment files in a local directory, like a consumer that persists every
+ * change would.
+ * <p>
+ * Every batch is encoded off the lock, as length-prefixed {@link ChangeEventCodec} records, and appended with a single
+ * write. When a segment is full the log rolls over to a new file and deletes the oldest ones beyond the retention.
+ * Batches that are written while another thread forces the log are covered by the next fsync together, so with
+ * {@link FsyncPolicy#EVERY_BATCH} concurrent batches share fsyncs instead of queueing for one each.
+ */
+public class SegmentedLogSink implements ChangeProcessor, AutoCloseable {
+
+    private static final String PREFIX = "changes-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int retainedSegments;
+    private final FsyncPolicy fsync;
+    private final ChangeEventCodec codec = new ChangeEventCodec();
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256 * 1024));
+
+    // Guarded by this
+    private final ArrayDeque<Path> segments = new ArrayDeque<>();
+    private int nextSegment;
+    private long segmentBytes;
+    // Lock order: this, then syncLock
+    private final Object syncLock = new Object();
+    private volatile FileChannel channel;
+    private volatile long written;
+    private long synced;
+    private LatencyHistogram syncLatency = new LatencyHistogram();
+    private volatile boolean closed;
+
+    // Per run
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private long syncs;
+    private int segmentsStarted;
+
+    /**
+     * When the log forces written changes to disk
+     *
+     * @param intervalMs Time between fsyncs, 0 to sync after every batch, or below 0 to leave it to the OS
+     */
+    public record FsyncPolicy(long intervalMs) {
+        public static final FsyncPolicy NEVER = new FsyncPolicy(-1);
+        public static final FsyncPolicy EVERY_BATCH = new FsyncPolicy(0);
+
+        public static FsyncPolicy every(long intervalMs) {
+            return new FsyncPolicy(intervalMs);
+        }
+
+        boolean everyBatch() {
+            return intervalMs == 0;
+        }
+
+        boolean leftToOs() {
+            return intervalMs < 0;
+        }
+
+        @Override
+        public String toString() {
+            return intervalMs < 0 ? "no fsync" : intervalMs == 0 ? "fsync per batch" : "fsync every " + intervalMs + "ms";
+        }
+    }
+
+    /**
+     * @param directory        Where to create the segment files, numbering continues after any segments already there
+     * @param segmentSize      Size at which the log moves on to a new segment (bytes)
+     * @param retainedSegments Number of segments to keep, older ones are deleted, including those of earlier runs
+     */
+    public SegmentedLogSink(Path directory, long segmentSize, int retainedSegments, FsyncPolicy fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.retainedSegments = retainedSegments;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            try (var existing = Files.list(directory)) {
+                // Segments of earlier runs count towards the retention like those of this one
+                existing.filter(file -> {
+                            var name = file.getFileName().toString();
+                            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                        })
+                        .sorted(Comparator.comparingInt(SegmentedLogSink::segmentNumber))
+                        .forEach(segments::add);
+            }
+            nextSegment = segments.isEmpty() ? 0 : segmentNumber(segments.getLast()) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open sink directory " + directory, e);
+        }
+        synchronized (this) {
+            roll();
+        }
+        if (fsync.intervalMs() > 0) {
+            var flusher = new Thread(this::flushLoop, "SegmentedLogSink flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    private static int segmentNumber(Path segment) {
+        var name = segment.getFileName().toString();
+        return Integer.parseInt(name, PREFIX.length(), name.length() - SUFFIX.length(), 10);
+    }
+
+    @Override
+    public void process(List<ChangeEvent> changes) {
+        var start = System.nanoTime();
+        var buffer = encode(changes);
+        var length = buffer.remaining();
+        long end;
+        synchronized (this) {
+            if (segmentBytes > 0 && segmentBytes + length > segmentSize) {
+                roll();
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to sink", e);
+            }
+            segmentBytes += length;
+            end = written + length;
+            written = end;
+        }
+        if (fsync.everyBatch()) {
+            sync(end);
+        }
+        records.add(changes.size());
+        bytes.add(length);
+        writeNanos.add(System.nanoTime() - start);
+    }
+
+    private ByteBuffer encode(List<ChangeEvent> changes) {
+        var buffer = scratch.get();
+        while (true) {
+            try {
+                buffer.clear();
+                for (var change : changes) {
+                    var lengthAt = buffer.position();
+                    if (buffer.remaining() < Integer.BYTES) {
+                        throw new BufferOverflowException();
+                    }
+                    buffer.position(lengthAt + Integer.BYTES);
+                    codec.encode(change, buffer);
+                    buffer.putInt(lengthAt, buffer.position() - lengthAt - Integer.BYTES);
+                }
+                return buffer.flip();
+            } catch (BufferOverflowException | IndexOutOfBoundsException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                scratch.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * Force the log to disk up to at least the given byte, unless another fsync already got there
+     */
+    private void sync(long upTo) {
+        synchronized (syncLock) {
+            if (synced < upTo) {
+                force();
+            }
+        }
+    }
+
+    // Called holding syncLock
+    private void force() {
+        var target = written;
+        var start = System.nanoTime();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync sink", e);
+        }
+        syncLatency.record((System.nanoTime() - start) / 1000);
+        syncs++;
+        synced = target;
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(fsync.intervalMs() * 1000 * 1000);
+            if (!closed) {
+                sync(written);
+            }
+        }
+    }
+
+    /**
+     * Start a new segment, forcing the previous one first unless the OS decides when to write
+     */
+    private void roll() {
+        var file = directory.resolve(PREFIX + "%08d".formatted(nextSegment++) + SUFFIX);
+        synchronized (syncLock) {
+            try {
+                if (channel != null) {
+                    if (!fsync.leftToOs() && synced < written) {
+                        force();
+                    }
+                    channel.close();
+                }
+                channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start sink segment " + file, e);
+            }
+        }
+        segments.add(file);
+        segmentBytes = 0;
+        segmentsStarted++;
+        while (segments.size() > retainedSegments) {
+            var oldest = segments.poll();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                System.err.println("Could not delete sink segment " + oldest + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        records.reset();
+        bytes.reset();
+        writeNanos.reset();
+        synchronized (this) {
+            segmentsStarted = 0;
+        }
+        synchronized (syncLock) {
+            syncs = 0;
+            syncLatency = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public SinkStats sinkStats() {
+        int segmentsStarted;
+        synchronized (this) {
+            segmentsStarted = this.segmentsStarted;
+        }
+        synchronized (syncLock) {
+            return new SinkStats(records.sum(), bytes.sum(), writeNanos.sum() / 1000 / 1000, syncs,
+                    syncLatency.summary(), segmentsStarted);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        synchronized (syncLock) {
+            try {
+                if (!fsync.leftToOs()) {
+                    channel.force(false);
+                }
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Could not close sink: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "log(%s, %dMB segments, %s)".formatted(directory, segmentSize / 1024 / 1024, fsync);
+    }
+}
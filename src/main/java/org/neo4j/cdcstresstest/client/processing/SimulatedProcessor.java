@@ -0,0 +1,60 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stands in for a real consumer: spends CPU time on every change and then waits for a sink once per batch, so
+ * {@link ProcessingStage#batchSize} decides between one sink call per change and one per batch.
+ *
+ * @param cpuNanosPerChange CPU time spent on every change (ns)
+ * @param cpuNanosPerByte   Additional CPU time per byte of the change, by {@link ChangeEvent#recordSize} (ns)
+ * @param sinkCallMicros    Time a call to the sink blocks, whatever the number of changes in it (us)
+ */
+public record SimulatedProcessor(long cpuNanosPerChange, double cpuNanosPerByte, long sinkCallMicros) implements ChangeProcessor {
+
+    public static SimulatedProcessor cpuPerChange(long nanos) {
+        return new SimulatedProcessor(nanos, 0, 0);
+    }
+
+    public static SimulatedProcessor cpuPerByte(double nanos) {
+        return new SimulatedProcessor(0, nanos, 0);
+    }
+
+    public static SimulatedProcessor sink(long callMicros) {
+        return new SimulatedProcessor(0, 0, callMicros);
+    }
+
+    @Override
+    public void process(List<ChangeEvent> changes) {
+        var cpuNanos = 0L;
+        for (var change : changes) {
+            cpuNanos += cpuNanosPerChange + (long) (cpuNanosPerByte * change.recordSize());
+        }
+        burn(cpuNanos);
+        if (sinkCallMicros > 0) {
+            LockSupport.parkNanos(sinkCallMicros * 1000);
+        }
+    }
+
+    /**
+     * Keep the CPU busy for the given time, without giving it up to other threads like sleeping would
+     */
+    private static long burn(long nanos) {
+        var deadline = System.nanoTime() + nanos;
+        var sum = 0L;
+        while (System.nanoTime() < deadline) {
+            for (int i = 1; i < 64; i++) {
+                sum += sum * 31 / i;
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "simulated(%dns/chg, %.1fns/B, %dus/call)".formatted(cpuNanosPerChange, cpuNanosPerByte, sinkCallMicros);
+    }
+}
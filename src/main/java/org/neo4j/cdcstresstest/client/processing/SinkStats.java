@@ -0,0 +1,20 @@
+package org.neo4j.cdcstresstest.client.processing;
+
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+
+import java.io.Serializable;
+
+/**
+ * What a sink wrote during one run.
+ *
+ * @param records     Number of changes written
+ * @param bytes       Number of bytes written, including length prefixes
+ * @param writeTime   Time spent writing, summed over the processing threads (ms)
+ * @param syncs       Number of fsyncs
+ * @param syncLatency Duration of the fsyncs (us)
+ * @param segments    Number of segment files started
+ */
+public record SinkStats(long records, long bytes, long writeTime, long syncs, LatencyHistogram.Summary syncLatency, int segments) implements Serializable {
+
+    public static final SinkStats NONE = new SinkStats(0, 0, 0, 0, LatencyHistogram.Summary.NONE, 0);
+}
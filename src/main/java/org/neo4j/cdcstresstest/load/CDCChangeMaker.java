@@ -1,32 +1,147 @@
 package org.neo4j.cdcstresstest.load;
 
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.jfr.ChangeMakerBatchEvent;
 import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransactionContext;
+import org.neo4j.driver.async.ResultCursor;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
 
-public class CDCChangeMaker {
+public class CDCChangeMaker implements AutoCloseable {
+
+    // The driver's default, raised when there are more writers than that
+    private static final int MIN_CONNECTION_POOL_SIZE = 100;
+
+    private static final String CREATE_NODES_CYPHER = """
+            UNWIND range(1,$node_count) AS i
+            CREATE (n:%s)
+            SET n.payload = $payload
+            """.stripIndent();
+    private static final String DELETE_NODES_CYPHER = """
+            MATCH (n:%s)
+            DETACH DELETE n
+            """.stripIndent();
+    // With transactions in flight every session slot deletes the nodes it created in its previous transaction
+    private static final String CREATE_SLOT_NODES_CYPHER = """
+            UNWIND range(1,$node_count) AS i
+            CREATE (n:%s {slot: $slot})
+            SET n.payload = $payload
+            """.stripIndent();
+    private static final String DELETE_SLOT_NODES_CYPHER = """
+            MATCH (n:%s {slot: $slot})
+            DETACH DELETE n
+            """.stripIndent();
 
     private final int numThreads;
     private final int batchSize;
+    private final ThreadMode threadMode;
+    private final Pacing pacing;
+    private final Workload workload;
+    private final Pipelining pipelining;
     private final Driver driver;
     private boolean running = false;
     private LinkedList<Thread> threads = new LinkedList<>();
     private long totalRuntime;
     private int totalChanges;
-    private final Random random = new Random();
+
+    // Shared by the workers, a histogram per worker would not scale to thousands of them
+    private final StripedHistogram writeLatency = new StripedHistogram();
+    private final StripedHistogram batchLatency = new StripedHistogram();
+    private final StripedHistogram startLag = new StripedHistogram();
+
+    // Open loop timeline, every batch has its slot
+    private final AtomicLong nextBatch = new AtomicLong();
+    private long timelineStart;
+    private long batchInterval;
+    private long scheduledChanges;
+
+    /**
+     * How the writers decide when to send the next batch
+     */
+    public enum Pacing {
+        /**
+         * Every writer waits for its own previous batch and then sleeps off any lead on its share of the rate.
+         * A stalled database slows the writers down with it, so the stall hides from the latency numbers.
+         */
+        CLOSED_LOOP,
+        /**
+         * Batches have fixed start times on a timeline shared by all writers, whichever writer is free takes the
+         * next one. A stall makes later batches start late instead of disappearing, and that delay counts towards
+         * their latency.
+         */
+        OPEN_LOOP
+    }
 
     public CDCChangeMaker(String uri, AuthToken auth, int numThreads, int batchSize) {
+        this(uri, auth, numThreads, batchSize, ThreadMode.PLATFORM);
+    }
+
+    public CDCChangeMaker(String uri, AuthToken auth, int numThreads, int batchSize, ThreadMode threadMode) {
+        this(uri, auth, numThreads, batchSize, threadMode, Pacing.CLOSED_LOOP);
+    }
+
+    public CDCChangeMaker(String uri, AuthToken auth, int numThreads, int batchSize, ThreadMode threadMode, Pacing pacing) {
+        this(uri, auth, numThreads, batchSize, threadMode, pacing, null);
+    }
+
+    public CDCChangeMaker(String uri, AuthToken auth, int numThreads, int batchSize, ThreadMode threadMode, Pacing pacing, Workload workload) {
+        this(uri, auth, numThreads, batchSize, threadMode, pacing, workload, Pipelining.OFF);
+    }
+
+    /**
+     * @param numThreads Number of concurrent writers, each with its own session and connection
+     * @param batchSize  Number of changes per batch. Without a workload half of them are node creations and half deletions,
+     *                   with a workload it is the number of rows of the batch's operation
+     * @param threadMode What the writers run on, {@link ThreadMode#VIRTUAL} to go to thousands of writers
+     * @param workload   Operations to run, or null to create a batch of nodes and delete them again, over and over
+     * @param pipelining Transactions each writer keeps in flight, and how many batches go into each
+     */
+    public CDCChangeMaker(String uri, AuthToken auth, int numThreads, int batchSize, ThreadMode threadMode, Pacing pacing, Workload workload, Pipelining pipelining) {
         this.numThreads = numThreads;
         this.batchSize = batchSize;
-        this.driver = GraphDatabase.driver(uri, auth);
+        this.threadMode = threadMode;
+        this.pacing = pacing;
+        this.workload = workload;
+        this.pipelining = pipelining;
+        var config = Config.builder()
+                .withMaxConnectionPoolSize(Math.max(MIN_CONNECTION_POOL_SIZE, numThreads * Math.max(1, pipelining.inFlightTransactions())))
+                .build();
+        this.driver = GraphDatabase.driver(uri, auth, config);
         reset();
     }
 
+    /**
+     * The label on every node the given writer creates, so a client can select the changes of some of the writers
+     */
+    public static String label(int worker) {
+        return "label_id_" + worker;
+    }
+
+    /**
+     * The labels of all writers, see {@link #label}
+     */
+    public List<String> labels() {
+        return IntStream.range(0, numThreads).mapToObj(CDCChangeMaker::label).toList();
+    }
+
     private synchronized void addChanges(int changes) {
         totalChanges += changes;
     }
@@ -36,28 +151,62 @@ public class CDCChangeMaker {
         totalRuntime = 0;
         totalChanges = 0;
         threads = new LinkedList<>();
+        writeLatency.reset();
+        batchLatency.reset();
+        startLag.reset();
+        nextBatch.set(0);
     }
 
-    private void createNodes(Session session, int count, long threadId, int payloadBytes) {
-        var createNodesCypher = """
-            UNWIND range(1,$node_count) AS i
-            CREATE (n:label_id_%s)
-            SET n.payload = $payload
-            """.stripIndent();
+    /**
+     * Prepare the batches of one writer. Statements and payloads are built once here and reused for every batch.
+     */
+    private Batch newBatch(int worker, int payloadBytes) {
+        var label = label(worker);
+        if (workload != null) {
+            var writer = new WorkloadWriter(workload, worker, label);
+            return session -> {
+                var event = new ChangeMakerBatchEvent();
+                event.begin();
+                var start = System.nanoTime();
+                var changes = writer.write(session, batchSize);
+                writeLatency.record(worker, (System.nanoTime() - start) / 1000);
+                commit(event, worker, ChangeMakerBatchEvent.WORKLOAD, changes);
+                return changes;
+            };
+        }
+        var createNodesCypher = CREATE_NODES_CYPHER.formatted(label);
+        var deleteNodesCypher = DELETE_NODES_CYPHER.formatted(label);
         var payload = new byte[payloadBytes];
-        random.nextBytes(payload);
-        session.run(createNodesCypher.formatted(Long.toString(threadId)), Map.of("node_count", count, "payload", payload)).consume();
+        ThreadLocalRandom.current().nextBytes(payload);
+        var createParameters = Map.<String, Object>of("node_count", batchSize / 2, "payload", payload);
+        return session -> {
+            var create = new ChangeMakerBatchEvent();
+            create.begin();
+            var start = System.nanoTime();
+            session.run(createNodesCypher, createParameters).consume();
+            var deleteStart = System.nanoTime();
+            writeLatency.record(worker, (deleteStart - start) / 1000);
+            commit(create, worker, ChangeMakerBatchEvent.CREATE, batchSize / 2);
+            var delete = new ChangeMakerBatchEvent();
+            delete.begin();
+            session.run(deleteNodesCypher).consume();
+            writeLatency.record(worker, (System.nanoTime() - deleteStart) / 1000);
+            commit(delete, worker, ChangeMakerBatchEvent.DELETE, batchSize / 2);
+            return batchSize;
+        };
     }
 
-    private void deleteNodes(Session session, long threadId) {
-        var deleteNodesCypher = """
-            MATCH (n:label_id_%s)
-            DETACH DELETE n
-            """.stripIndent();
-        session.run(deleteNodesCypher.formatted(Long.toString(threadId)), Map.of("label", threadId)).consume();
+    private static void commit(ChangeMakerBatchEvent event, int worker, String operation, int changes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.worker = worker;
+            event.operation = operation;
+            event.changes = changes;
+            event.commit();
+        }
     }
 
-    private void waitIfNecessary(long startTime, int changeRatePerThreadPerSecond, int changes) {
+    private void waitIfNecessary(long startTime, double changeRatePerThreadPerSecond, int changes) {
         var ratePerMs = changeRatePerThreadPerSecond / 1000.0;
         var elapsed = System.currentTimeMillis() - startTime;
         var expectedChanges = elapsed * ratePerMs;
@@ -75,15 +224,28 @@ public class CDCChangeMaker {
         }
     }
 
-    private void changeMakerThread(Driver driver, int duration, int changeRatePerThreadPerSecond, int payloadBytes) {
+    /**
+     * Number of changes a writer sends per step of the schedule: one batch, or one transaction of batches
+     */
+    private int unitSize() {
+        return pipelining.isOff() ? batchSize : batchSize * pipelining.batchesPerTransaction();
+    }
+
+    private Writer newWriter(Driver driver, int worker, int payloadBytes) {
+        return pipelining.isOff()
+                ? new BlockingWriter(driver, worker, newBatch(worker, payloadBytes))
+                : new PipelinedWriter(driver, worker, payloadBytes);
+    }
+
+    private void changeMakerThread(Driver driver, int worker, int duration, double changeRatePerThreadPerSecond, int payloadBytes) {
         var startTime = System.currentTimeMillis();
+        var startNanos = System.nanoTime();
         var changes = 0;
-        try(var session = driver.session()) {
+        try(var writer = newWriter(driver, worker, payloadBytes)) {
             do {
-                createNodes(session, batchSize /2, Thread.currentThread().threadId(), payloadBytes);
-                deleteNodes(session, Thread.currentThread().threadId());
-                changes += batchSize;
-                addChanges(batchSize);
+                // Where a steady closed loop would have started this batch
+                var intendedStart = startNanos + (long) (changes / changeRatePerThreadPerSecond * 1_000_000_000L);
+                changes += writer.write(intendedStart);
                 waitIfNecessary(startTime, changeRatePerThreadPerSecond, changes);
             }
             while (startTime + duration > System.currentTimeMillis());
@@ -94,17 +256,62 @@ public class CDCChangeMaker {
         }
     }
 
+    private void openLoopThread(Driver driver, int worker, int payloadBytes) {
+        var startTime = System.currentTimeMillis();
+        var end = timelineStart + scheduledChanges / unitSize() * batchInterval;
+        try(var writer = newWriter(driver, worker, payloadBytes)) {
+            while (true) {
+                var intendedStart = timelineStart + nextBatch.getAndIncrement() * batchInterval;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long now;
+                while ((now = System.nanoTime()) < intendedStart) {
+                    LockSupport.parkNanos(intendedStart - now);
+                }
+                if (now >= end) {
+                    // Too far behind to start any more batches before the end of the test
+                    break;
+                }
+                writer.write(intendedStart);
+            }
+        }
+        var runtime = System.currentTimeMillis() - startTime;
+        synchronized (this) {
+            totalRuntime += runtime;
+        }
+    }
+
+    /**
+     * @param targetChangeRate Changes per second over all writers, at least 1
+     * @param payloadBytes     Size of the payload on every node, ignored when running a {@link Workload}
+     */
     public void start(int duration, int targetChangeRate, int payloadBytes) {
+        if (targetChangeRate <= 0) {
+            throw new IllegalArgumentException("Need a change rate of at least 1 per second, got " + targetChangeRate);
+        }
         if (running) {
             throw new IllegalStateException("Already running");
         }
         running = true;
+        if (workload != null) {
+            try (var session = driver.session()) {
+                session.run(WorkloadWriter.CREATE_INDEX).consume();
+            }
+        }
 
-        var changeRatePerThreadPerSecond = targetChangeRate / numThreads;
+        // Not rounded down, with thousands of writers each one may get less than a change per second
+        var changeRatePerThreadPerSecond = targetChangeRate / (double) numThreads;
+        batchInterval = Math.max(1, unitSize() * 1_000_000_000L / targetChangeRate);
+        scheduledChanges = (long) duration * 1_000_000L / batchInterval * unitSize();
+        timelineStart = System.nanoTime();
         for(int i = 0; i < numThreads; i++) {
-            var thread = new Thread(() -> changeMakerThread(driver, duration, changeRatePerThreadPerSecond, payloadBytes));
-            thread.setName("ChangeMakerThread-" + i);
-            threads.add(thread);
+            var worker = i;
+            Runnable task = switch (pacing) {
+                case CLOSED_LOOP -> () -> changeMakerThread(driver, worker, duration, changeRatePerThreadPerSecond, payloadBytes);
+                case OPEN_LOOP -> () -> openLoopThread(driver, worker, payloadBytes);
+            };
+            threads.add(threadMode.newThread("ChangeMakerThread-" + i, task));
         }
         for (var thread : threads) {
             thread.start();
@@ -115,15 +322,239 @@ public class CDCChangeMaker {
         for (var thread : threads) {
             thread.join();
         }
-        var changes = totalChanges;
-        var runtime = this.totalRuntime;
-        reset();
-        return new ChangeMakerResult(
-                changes,
-                runtime / (float) numThreads
+        var result = new ChangeMakerResult(
+                totalChanges,
+                this.totalRuntime / (float) numThreads,
+                writeLatency.summary(),
+                batchLatency.summary(),
+                startLag.summary(),
+                scheduledChanges
         );
+        reset();
+        return result;
     }
 
-    public record ChangeMakerResult(int totalChanges, float averageRuntime){}
+    /**
+     * Close the connections of the writers, the change maker cannot run again afterwards
+     */
+    @Override
+    public void close() {
+        driver.close();
+    }
+
+    /**
+     * @param writeLatency     Time each transaction took (us)
+     * @param batchLatency     Time from when each batch should have started until it was done, corrected for
+     *                         coordinated omission (us)
+     * @param startLag         How late each batch started (us)
+     * @param scheduledChanges Number of changes the target rate asked for during the test
+     */
+    public record ChangeMakerResult(int totalChanges, float averageRuntime, LatencyHistogram.Summary writeLatency,
+                                    LatencyHistogram.Summary batchLatency, LatencyHistogram.Summary startLag,
+                                    long scheduledChanges) implements Serializable {
+
+        /**
+         * Number of changes the writers fell short of the target rate
+         */
+        public long changesBehind() {
+            return Math.max(0, scheduledChanges - totalChanges);
+        }
+    }
+
+    /**
+     * One batch of changes, in one or more transactions
+     */
+    private interface Batch {
+        /**
+         * @return The number of changes made
+         */
+        int write(Session session);
+    }
+
+    /**
+     * Writes the batches of one writer thread
+     */
+    private interface Writer extends AutoCloseable {
+        /**
+         * Start the next step of the schedule, recording its latency from when it should have started
+         *
+         * @return The number of changes written, or sent off if they complete later. This is what the closed loop
+         * paces on; only changes that committed count towards {@link ChangeMakerResult#totalChanges}.
+         */
+        int write(long intendedStart);
+
+        /**
+         * Wait for everything that was sent off to complete
+         */
+        @Override
+        void close();
+    }
+
+    private class BlockingWriter implements Writer {
+        private final Session session;
+        private final int worker;
+        private final Batch batch;
+
+        BlockingWriter(Driver driver, int worker, Batch batch) {
+            this.session = driver.session();
+            this.worker = worker;
+            this.batch = batch;
+        }
+
+        @Override
+        public int write(long intendedStart) {
+            var batchStart = System.nanoTime();
+            startLag.record(worker, Math.max(0, batchStart - intendedStart) / 1000);
+            var changes = batch.write(session);
+            batchLatency.record(worker, (System.nanoTime() - Math.min(intendedStart, batchStart)) / 1000);
+            addChanges(changes);
+            return changes;
+        }
+
+        @Override
+        public void close() {
+            session.close();
+        }
+    }
+
+    /**
+     * Keeps {@link Pipelining#inFlightTransactions} managed transactions running, each on a session slot of its own
+     */
+    private class PipelinedWriter implements Writer {
+        private final int worker;
+        private final AsyncSession[] sessions;
+        private final ArrayBlockingQueue<Integer> idle;
+        private final WorkloadWriter workloadWriter;
+        private final String createSlotNodesCypher;
+        private final String deleteSlotNodesCypher;
+        private final byte[] payload;
+
+        PipelinedWriter(Driver driver, int worker, int payloadBytes) {
+            this.worker = worker;
+            var inFlight = pipelining.inFlightTransactions();
+            this.sessions = new AsyncSession[inFlight];
+            this.idle = new ArrayBlockingQueue<>(inFlight);
+            for (int i = 0; i < inFlight; i++) {
+                sessions[i] = driver.session(AsyncSession.class);
+                idle.add(i);
+            }
+            var label = label(worker);
+            this.workloadWriter = workload == null ? null : new WorkloadWriter(workload, worker, label);
+            this.createSlotNodesCypher = CREATE_SLOT_NODES_CYPHER.formatted(label);
+            this.deleteSlotNodesCypher = DELETE_SLOT_NODES_CYPHER.formatted(label);
+            this.payload = new byte[payloadBytes];
+            ThreadLocalRandom.current().nextBytes(payload);
+        }
+
+        @Override
+        public int write(long intendedStart) {
+            int slot;
+            try {
+                slot = idle.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+            var statements = statements(slot);
+            var event = new ChangeMakerBatchEvent();
+            event.begin();
+            var transactionStart = System.nanoTime();
+            startLag.record(worker, Math.max(0, transactionStart - intendedStart) / 1000);
+            // Statements are prepared up front, a retried transaction runs the same ones again
+            sessions[slot].executeWriteAsync(tx -> runAll(tx, statements)).whenComplete((changes, error) -> {
+                var end = System.nanoTime();
+                if (workloadWriter != null) {
+                    for (var statement : statements) {
+                        if (error == null) {
+                            workloadWriter.completed(statement);
+                        } else {
+                            workloadWriter.failed(statement);
+                        }
+                    }
+                }
+                if (error != null) {
+                    System.err.println("ChangeMaker transaction failed: " + error.getMessage());
+                } else {
+                    addChanges(changes);
+                }
+                commit(event, worker, ChangeMakerBatchEvent.TRANSACTION, error == null ? changes : 0);
+                writeLatency.record(worker, (end - transactionStart) / 1000);
+                batchLatency.record(worker, (end - Math.min(intendedStart, transactionStart)) / 1000);
+                idle.add(slot);
+            });
+            // Submitted, not committed: at most inFlightTransactions steps are ahead of the commits, which is the point
+            // of pipelining, and a transaction that fails is missing from totalChanges rather than written again
+            return unitSize();
+        }
+
+        private List<WorkloadWriter.Statement> statements(int slot) {
+            var statements = new ArrayList<WorkloadWriter.Statement>(pipelining.batchesPerTransaction());
+            if (workloadWriter != null) {
+                for (int i = 0; i < pipelining.batchesPerTransaction(); i++) {
+                    statements.add(workloadWriter.prepare(batchSize));
+                }
+                return statements;
+            }
+            // Creating and deleting the same nodes in one transaction would not make any changes at all
+            statements.add(new WorkloadWriter.Statement(Workload.Operation.DELETE, deleteSlotNodesCypher,
+                    Map.of("slot", slot), new int[0]));
+            statements.add(new WorkloadWriter.Statement(Workload.Operation.CREATE, createSlotNodesCypher,
+                    Map.of("slot", slot, "node_count", unitSize() / 2, "payload", payload), new int[0]));
+            return statements;
+        }
+
+        private static CompletionStage<Integer> runAll(AsyncTransactionContext tx, List<WorkloadWriter.Statement> statements) {
+            CompletionStage<Integer> changes = CompletableFuture.completedFuture(0);
+            for (var statement : statements) {
+                changes = changes.thenCompose(sum -> tx.runAsync(statement.query(), statement.parameters())
+                        .thenCompose(ResultCursor::consumeAsync)
+                        .thenApply(summary -> sum + statement.changes(summary.counters())));
+            }
+            return changes;
+        }
+
+        @Override
+        public void close() {
+            try {
+                for (int i = 0; i < sessions.length; i++) {
+                    idle.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (var session : sessions) {
+                session.closeAsync().toCompletableFuture().join();
+            }
+        }
+    }
+
+    /**
+     * A histogram per processor, shared by the workers that map to it
+     */
+    private static class StripedHistogram {
+        private final LatencyHistogram[] stripes = new LatencyHistogram[Runtime.getRuntime().availableProcessors()];
+
+        void reset() {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new LatencyHistogram();
+            }
+        }
 
+        void record(int worker, long value) {
+            var histogram = stripes[worker % stripes.length];
+            synchronized (histogram) {
+                histogram.record(value);
+            }
+        }
+
+        LatencyHistogram.Summary summary() {
+            var total = new LatencyHistogram();
+            for (var histogram : stripes) {
+                synchronized (histogram) {
+                    total.add(histogram);
+                }
+            }
+            return total.summary();
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package org.neo4j.cdcstresstest.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribution of payload sizes. There are only ever a few distinct sizes, so every writer can keep one prebuilt
+ * payload per size and reuse it for every row, see {@link #sizes()}.
+ */
+public class PayloadSizes {
+
+    // Uniform ranges are rounded to this many steps
+    private static final int UNIFORM_STEPS = 64;
+
+    private final int[] sizes;
+    private final double[] cumulativeWeights;
+    private final String description;
+
+    private PayloadSizes(int[] sizes, double[] weights, String description) {
+        this.sizes = sizes;
+        this.cumulativeWeights = new double[weights.length];
+        var total = Arrays.stream(weights).sum();
+        var sum = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i] / total;
+            cumulativeWeights[i] = sum;
+        }
+        this.description = description;
+    }
+
+    public static PayloadSizes fixed(int bytes) {
+        return new PayloadSizes(new int[]{bytes}, new double[]{1}, "fixed:" + bytes);
+    }
+
+    /**
+     * Sizes between min and max inclusive, in at most {@value UNIFORM_STEPS} equally likely steps
+     */
+    public static PayloadSizes uniform(int min, int max) {
+        var steps = Math.min(UNIFORM_STEPS, max - min) + 1;
+        var sizes = new int[steps];
+        var weights = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            sizes[i] = steps == 1 ? min : min + (int) ((long) (max - min) * i / (steps - 1));
+            weights[i] = 1;
+        }
+        return new PayloadSizes(sizes, weights, "uniform:" + min + "-" + max);
+    }
+
+    /**
+     * @param weights Relative weight of each size, for example 90% tiny and 10% large payloads
+     */
+    public static PayloadSizes mix(Map<Integer, Double> weights) {
+        var sorted = new TreeMap<>(weights);
+        var description = new StringBuilder("mix:");
+        sorted.forEach((size, weight) -> description.append(description.length() > 4 ? "," : "").append(size).append('=').append(weight));
+        return new PayloadSizes(
+                sorted.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                sorted.values().stream().mapToDouble(Double::doubleValue).toArray(),
+                description.toString());
+    }
+
+    /**
+     * Parse the forms produced by {@link #toString}: {@code fixed:32}, {@code uniform:16-4096} or
+     * {@code mix:32=0.9,65536=0.1}
+     */
+    public static PayloadSizes parse(String text) {
+        var separator = text.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Payload sizes need a kind, like fixed:32, got " + text);
+        }
+        var spec = text.substring(separator + 1).trim();
+        return switch (text.substring(0, separator).trim()) {
+            case "fixed" -> fixed(Integer.parseInt(spec));
+            case "uniform" -> {
+                var range = spec.split("-");
+                yield uniform(Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim()));
+            }
+            case "mix" -> {
+                var weights = new TreeMap<Integer, Double>();
+                for (var entry : spec.split(",")) {
+                    var parts = entry.split("=");
+                    weights.put(Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+                }
+                yield mix(weights);
+            }
+            default -> throw new IllegalArgumentException("Unknown payload size kind in " + text);
+        };
+    }
+
+    /**
+     * Every size this distribution can return
+     */
+    public int[] sizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * @return Index into {@link #sizes()} of a randomly drawn size
+     */
+    int sampleIndex(RandomGenerator random) {
+        var r = random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (r < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,31 @@
+package org.neo4j.cdcstresstest.load;
+
+/**
+ * How the change maker keeps its connections busy.
+ * <p>
+ * Bolt runs one transaction at a time on a connection, so every transaction a writer keeps in flight has an async
+ * session, and a connection, of its own. The writer thread does not wait for them: it starts the next transaction as
+ * soon as a session is free. Grouping several batches into one managed transaction spreads the commit round-trip
+ * over all of them.
+ *
+ * @param inFlightTransactions  Transactions each writer keeps running at once, 0 to write with blocking calls
+ * @param batchesPerTransaction Batches grouped into each managed transaction, only used with transactions in flight
+ */
+public record Pipelining(int inFlightTransactions, int batchesPerTransaction) {
+
+    /**
+     * Every batch is written with blocking auto-commit calls, one after the other
+     */
+    public static final Pipelining OFF = new Pipelining(0, 1);
+
+    public Pipelining {
+        if (inFlightTransactions < 0 || batchesPerTransaction < 1) {
+            throw new IllegalArgumentException("Need at least 0 transactions in flight and 1 batch per transaction, got "
+                    + inFlightTransactions + " and " + batchesPerTransaction);
+        }
+    }
+
+    public boolean isOff() {
+        return inFlightTransactions == 0;
+    }
+}
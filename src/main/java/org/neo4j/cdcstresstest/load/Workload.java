@@ -0,0 +1,104 @@
+package org.neo4j.cdcstresstest.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.random.RandomGenerator;
+
+/**
+ * What the change maker writes. Every batch is a single transaction running one operation over a batch of distinct
+ * keys. Keys are drawn from a per-writer key space with a Zipf skew, so a few hot keys get most of the updates.
+ * <p>
+ * A workload can be built in code or loaded from a properties file:
+ * <pre>
+ * weight.create = 30
+ * weight.update = 50
+ * weight.relate = 10
+ * weight.label  = 5
+ * weight.delete = 5
+ * payload       = mix:32=0.9,65536=0.1
+ * keySpace      = 100000
+ * skew          = 1.1
+ * </pre>
+ *
+ * @param weights      Relative weight of each operation, missing operations are never picked
+ * @param payloadSizes Sizes of the payload property set by creates, updates and new relationships
+ * @param keySpace     Number of distinct keys per writer
+ * @param skew         Zipf exponent of the key distribution, 0 for uniform
+ */
+public record Workload(Map<Operation, Integer> weights, PayloadSizes payloadSizes, int keySpace, double skew) {
+
+    public enum Operation {
+        /** Create nodes for keys that do not exist yet */
+        CREATE,
+        /** Set the payload of existing nodes */
+        UPDATE,
+        /** Create relationships between existing nodes */
+        RELATE,
+        /** Add or remove a label on existing nodes */
+        LABEL,
+        /** Detach delete existing nodes, together with their relationships */
+        DELETE
+    }
+
+    public Workload {
+        weights = Map.copyOf(weights);
+        if (weights.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("Operation weights cannot be negative, got " + weights);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("A workload needs at least one operation with a positive weight");
+        }
+        if (keySpace < 1) {
+            throw new IllegalArgumentException("Key space must hold at least one key, got " + keySpace);
+        }
+    }
+
+    public static Workload load(Path file) throws IOException {
+        try (var reader = Files.newBufferedReader(file)) {
+            return load(reader);
+        }
+    }
+
+    public static Workload load(Reader reader) throws IOException {
+        var properties = new Properties();
+        properties.load(reader);
+        var weights = new EnumMap<Operation, Integer>(Operation.class);
+        for (var operation : Operation.values()) {
+            var weight = properties.getProperty("weight." + operation.name().toLowerCase());
+            if (weight != null) {
+                weights.put(operation, Integer.parseInt(weight.trim()));
+            }
+        }
+        return new Workload(
+                weights,
+                PayloadSizes.parse(properties.getProperty("payload", "fixed:32")),
+                Integer.parseInt(properties.getProperty("keySpace", "100000").trim()),
+                Double.parseDouble(properties.getProperty("skew", "0").trim())
+        );
+    }
+
+    Operation pick(RandomGenerator random) {
+        var total = 0;
+        for (var weight : weights.values()) {
+            total += weight;
+        }
+        var r = random.nextInt(total);
+        for (var operation : Operation.values()) {
+            r -= weights.getOrDefault(operation, 0);
+            if (r < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking an operation");
+    }
+
+    @Override
+    public String toString() {
+        return "workload(" + weights + ", " + payloadSizes + ", keys=" + keySpace + ", skew=" + skew + ")";
+    }
+}
@@ -0,0 +1,242 @@
+package org.neo4j.cdcstresstest.load;
+
+import org.neo4j.driver.Session;
+import org.neo4j.driver.summary.SummaryCounters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Prepares the batches of a {@link Workload} for one writer.
+ * <p>
+ * The writer owns its keys, so it knows which of them exist and which carry the hot label without asking the
+ * database: updates only touch existing nodes and creates only new keys. Keys of batches that are still running are
+ * busy and are not picked again until the batch {@link #completed} or {@link #failed}, so batches that run at the same
+ * time, or in the same transaction, never touch the same node.
+ */
+class WorkloadWriter {
+
+    static final String CREATE_INDEX = "CREATE INDEX cdc_stress_key IF NOT EXISTS FOR (n:CDCStress) ON (n.key)";
+
+    private static final String CREATE = """
+            UNWIND $rows AS row
+            CREATE (n:CDCStress:%s {key: row.key, payload: row.payload})
+            """;
+    private static final String UPDATE = """
+            UNWIND $rows AS row
+            MATCH (n:CDCStress {key: row.key})
+            SET n.payload = row.payload, n.version = $version
+            """;
+    private static final String RELATE = """
+            UNWIND $rows AS row
+            MATCH (a:CDCStress {key: row.key}), (b:CDCStress {key: row.other})
+            CREATE (a)-[:LINKED {payload: row.payload}]->(b)
+            """;
+    private static final String LABEL = """
+            UNWIND $rows AS row
+            MATCH (n:CDCStress {key: row.key})
+            FOREACH (_ IN CASE WHEN row.add THEN [1] ELSE [] END | SET n:CDCStressHot)
+            FOREACH (_ IN CASE WHEN row.add THEN [] ELSE [1] END | REMOVE n:CDCStressHot)
+            """;
+    private static final String DELETE = """
+            UNWIND $rows AS row
+            MATCH (n:CDCStress {key: row.key})
+            DETACH DELETE n
+            """;
+
+    private final Workload workload;
+    private final ZipfSampler sampler;
+    private final long keyOffset;
+    private final SplittableRandom random;
+    private final Map<Workload.Operation, String> statements = new EnumMap<>(Workload.Operation.class);
+    private final byte[][] payloads;
+
+    private final BitSet exists = new BitSet();
+    private final BitSet hot = new BitSet();
+    // Keys of prepared batches that have not completed yet
+    private final BitSet busy = new BitSet();
+    // Busy keys that a delete took the hot label from, to put it back if the delete fails
+    private final BitSet deletedHot = new BitSet();
+    private int existing;
+    private long version;
+
+    /**
+     * @param worker Index of the writer, keeps the key spaces of different writers apart
+     * @param label  Extra label on every node this writer creates
+     */
+    WorkloadWriter(Workload workload, int worker, String label) {
+        this.workload = workload;
+        this.sampler = new ZipfSampler(workload.keySpace(), workload.skew());
+        this.keyOffset = (long) worker * workload.keySpace();
+        this.random = new SplittableRandom(worker);
+        statements.put(Workload.Operation.CREATE, CREATE.formatted(label).stripIndent());
+        statements.put(Workload.Operation.UPDATE, UPDATE.stripIndent());
+        statements.put(Workload.Operation.RELATE, RELATE.stripIndent());
+        statements.put(Workload.Operation.LABEL, LABEL.stripIndent());
+        statements.put(Workload.Operation.DELETE, DELETE.stripIndent());
+        var sizes = workload.payloadSizes().sizes();
+        this.payloads = new byte[sizes.length][];
+        for (int i = 0; i < sizes.length; i++) {
+            payloads[i] = new byte[sizes[i]];
+            random.nextBytes(payloads[i]);
+        }
+    }
+
+    /**
+     * Run one batch in its own auto-commit transaction.
+     *
+     * @return The number of changes the batch made
+     */
+    int write(Session session, int batchSize) {
+        var statement = prepare(batchSize);
+        int changes;
+        try {
+            changes = statement.changes(session.run(statement.query(), statement.parameters()).consume().counters());
+        } catch (RuntimeException e) {
+            failed(statement);
+            throw e;
+        }
+        completed(statement);
+        return changes;
+    }
+
+    /**
+     * Pick the operation and keys of the next batch. Running it is up to the caller, who must call {@link #completed}
+     * once it has committed or {@link #failed} once it has failed.
+     */
+    synchronized Statement prepare(int batchSize) {
+        var operation = workload.pick(random);
+        if (operation == Workload.Operation.CREATE && existing == workload.keySpace()) {
+            operation = Workload.Operation.UPDATE;
+        } else if (operation != Workload.Operation.CREATE && existing == 0) {
+            operation = Workload.Operation.CREATE;
+        }
+        var keys = new int[batchSize];
+        var rows = rows(operation, keys);
+        return new Statement(operation, statements.get(operation), Map.of("rows", rows, "version", version++),
+                Arrays.copyOf(keys, rows.size()));
+    }
+
+    synchronized void completed(Statement statement) {
+        for (var key : statement.keys()) {
+            busy.clear(key);
+            deletedHot.clear(key);
+        }
+    }
+
+    /**
+     * Release the keys of a batch whose transaction rolled back, and undo what preparing it took for granted: the
+     * nodes it created do not exist, the ones it deleted still do and the labels it changed are as they were.
+     */
+    synchronized void failed(Statement statement) {
+        for (var key : statement.keys()) {
+            switch (statement.operation()) {
+                case CREATE -> {
+                    exists.clear(key);
+                    existing--;
+                }
+                case LABEL -> hot.flip(key);
+                case DELETE -> {
+                    exists.set(key);
+                    hot.set(key, deletedHot.get(key));
+                    existing++;
+                }
+                case UPDATE, RELATE -> {
+                }
+            }
+        }
+        completed(statement);
+    }
+
+    private List<Map<String, Object>> rows(Workload.Operation operation, int[] keys) {
+        var rows = new ArrayList<Map<String, Object>>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            var key = pick(operation != Workload.Operation.CREATE, true);
+            if (key < 0) {
+                break;
+            }
+            busy.set(key);
+            keys[i] = key;
+            var payload = payloads[workload.payloadSizes().sampleIndex(random)];
+            rows.add(switch (operation) {
+                case CREATE -> {
+                    exists.set(key);
+                    existing++;
+                    yield Map.of("key", keyOffset + key, "payload", payload);
+                }
+                case UPDATE -> Map.of("key", keyOffset + key, "payload", payload);
+                case RELATE -> Map.of("key", keyOffset + key, "other", keyOffset + pick(true, false), "payload", payload);
+                case LABEL -> {
+                    var add = !hot.get(key);
+                    hot.set(key, add);
+                    yield Map.of("key", keyOffset + key, "add", add);
+                }
+                case DELETE -> {
+                    exists.clear(key);
+                    deletedHot.set(key, hot.get(key));
+                    hot.clear(key);
+                    existing--;
+                    yield Map.of("key", keyOffset + key);
+                }
+            });
+        }
+        return rows;
+    }
+
+    /**
+     * Draw a key and move on to the next suitable one if it does not fit, wrapping around the key space.
+     *
+     * @param mustExist   Whether the key must or must not exist
+     * @param skipBusy    Whether keys of batches that have not completed are excluded
+     * @return The key, or -1 if there is no suitable key left
+     */
+    private int pick(boolean mustExist, boolean skipBusy) {
+        var keySpace = workload.keySpace();
+        var start = sampler.sample(random);
+        var key = start;
+        var scanned = 0;
+        while (scanned < keySpace) {
+            var next = mustExist ? exists.nextSetBit(key) : exists.nextClearBit(key);
+            if (next < 0 || next >= keySpace) {
+                // Wrap around
+                scanned += keySpace - key;
+                key = 0;
+                continue;
+            }
+            scanned += next - key;
+            if (!skipBusy || !busy.get(next)) {
+                return next;
+            }
+            key = next + 1;
+            scanned++;
+        }
+        return -1;
+    }
+
+    /**
+     * A prepared batch
+     *
+     * @param keys Keys the batch touches, busy until it completes
+     */
+    record Statement(Workload.Operation operation, String query, Map<String, Object> parameters, int[] keys) {
+
+        /**
+         * The number of changes the batch made, from the counters of its result
+         */
+        int changes(SummaryCounters counters) {
+            return switch (operation) {
+                case CREATE -> counters.nodesCreated();
+                // Every row sets the payload and the version
+                case UPDATE -> counters.propertiesSet() / 2;
+                case RELATE -> counters.relationshipsCreated();
+                case LABEL -> counters.labelsAdded() + counters.labelsRemoved();
+                case DELETE -> counters.nodesDeleted() + counters.relationshipsDeleted();
+            };
+        }
+    }
+}
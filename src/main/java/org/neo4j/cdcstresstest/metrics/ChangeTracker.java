@@ -0,0 +1,198 @@
+package org.neo4j.cdcstresstest.metrics;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Records which changes were seen as (txId, seq) pairs packed into single longs, 8 bytes per change, so that
+ * millions of changes can be checked for duplicates, gaps and ordering in O(n log n). The rare change that does not
+ * fit, like one past the 16 millionth of a transaction, is kept as a separate pair instead.
+ * Not thread safe: record on one thread, {@link #verify} the per-thread trackers together afterwards.
+ */
+public class ChangeTracker {
+
+    private static final int SEQ_BITS = 24;
+    private static final long MAX_SEQ = (1L << SEQ_BITS) - 1;
+    private static final long MAX_TX_ID = (1L << (63 - SEQ_BITS)) - 1;
+
+    private long[] keys = new long[1024];
+    private int size;
+    // Changes that do not fit in a key, as txId, seq pairs
+    private long[] wide = new long[0];
+    private int wideSize;
+    private long lastTxId = -1;
+    private long lastSeq = -1;
+    private long orderingViolations;
+
+    /**
+     * Record a change. Changes are expected in (txId, seq) order, anything at or before the previous change counts as
+     * an ordering violation.
+     */
+    public void record(long txId, long seq) {
+        if (txId < lastTxId || txId == lastTxId && seq <= lastSeq) {
+            orderingViolations++;
+        }
+        lastTxId = txId;
+        lastSeq = seq;
+        if (!fits(txId, seq)) {
+            if (wideSize == wide.length) {
+                wide = Arrays.copyOf(wide, Math.max(64, wide.length * 2));
+            }
+            wide[wideSize++] = txId;
+            wide[wideSize++] = seq;
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[size++] = key(txId, seq);
+    }
+
+    public int size() {
+        return size + wideSize / 2;
+    }
+
+    /**
+     * Whether a change can be packed into a {@link #key}
+     */
+    public static boolean fits(long txId, long seq) {
+        return txId >= 0 && txId <= MAX_TX_ID && seq >= 0 && seq <= MAX_SEQ;
+    }
+
+    /**
+     * Like {@link #key}, but for any change: one that does not fit sorts after all changes before it in commit order,
+     * and the same as the others that do not fit in its transaction
+     */
+    public static long sortKey(long txId, long seq) {
+        return key(Math.clamp(txId, 0, MAX_TX_ID), Math.clamp(seq, 0, MAX_SEQ));
+    }
+
+    /**
+     * Pack a change into a single long that sorts in commit order.
+     *
+     * @throws IllegalArgumentException if txId or seq do not fit
+     */
+    public static long key(long txId, long seq) {
+        if (txId < 0 || txId > MAX_TX_ID || seq < 0 || seq > MAX_SEQ) {
+            throw new IllegalArgumentException("Cannot track change (" + txId + ", " + seq + ")");
+        }
+        return txId << SEQ_BITS | seq;
+    }
+
+    /**
+     * Check the changes recorded by all trackers together.
+     * <p>
+     * A gap is a seq missing between two seqs that were seen for the same transaction, or before the first seen seq
+     * of any but the first transaction. The end of a transaction cannot be told apart from missing changes, so
+     * changes missing at the end of a transaction are not counted.
+     */
+    public static Report verify(List<ChangeTracker> trackers) {
+        var total = 0;
+        var wideTotal = 0;
+        var orderingViolations = 0L;
+        for (var tracker : trackers) {
+            total += tracker.size;
+            wideTotal += tracker.wideSize / 2;
+            orderingViolations += tracker.orderingViolations;
+        }
+        var all = new long[total];
+        var wide = new long[wideTotal * 2];
+        var offset = 0;
+        var wideOffset = 0;
+        for (var tracker : trackers) {
+            System.arraycopy(tracker.keys, 0, all, offset, tracker.size);
+            offset += tracker.size;
+            System.arraycopy(tracker.wide, 0, wide, wideOffset, tracker.wideSize);
+            wideOffset += tracker.wideSize;
+        }
+        Arrays.parallelSort(all);
+        var wideOrder = sortPairs(wide);
+
+        var counter = new Counter();
+        // Merge the packed and the wide changes, both sorted in commit order
+        var i = 0;
+        var j = 0;
+        while (i < all.length || j < wideOrder.length) {
+            var useWide = i == all.length;
+            if (!useWide && j < wideOrder.length) {
+                var key = all[i];
+                var txId = wide[wideOrder[j]];
+                var seq = wide[wideOrder[j] + 1];
+                useWide = txId < key >>> SEQ_BITS || txId == key >>> SEQ_BITS && seq < (key & MAX_SEQ);
+            }
+            if (useWide) {
+                counter.add(wide[wideOrder[j]], wide[wideOrder[j] + 1]);
+                j++;
+            } else {
+                counter.add(all[i] >>> SEQ_BITS, all[i] & MAX_SEQ);
+                i++;
+            }
+        }
+        var changes = (long) total + wideTotal;
+        return new Report(changes, counter.unique, counter.transactions, changes - counter.unique, counter.gaps, orderingViolations);
+    }
+
+    /**
+     * Offsets of the txId, seq pairs in commit order
+     */
+    private static int[] sortPairs(long[] pairs) {
+        return IntStream.range(0, pairs.length / 2)
+                .map(pair -> pair * 2)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(offset -> pairs[offset]).thenComparingLong(offset -> pairs[offset + 1]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Counts distinct changes, transactions and gaps over changes that arrive in commit order
+     */
+    private static class Counter {
+        private long unique;
+        private long transactions;
+        private long gaps;
+        private long previousTxId = -1;
+        private long previousSeq = -1;
+
+        void add(long txId, long seq) {
+            if (txId == previousTxId && seq == previousSeq) {
+                return;
+            }
+            unique++;
+            if (previousTxId == -1 || txId != previousTxId) {
+                transactions++;
+                if (previousTxId != -1) {
+                    gaps += seq;
+                }
+            } else {
+                gaps += seq - previousSeq - 1;
+            }
+            previousTxId = txId;
+            previousSeq = seq;
+        }
+    }
+
+    /**
+     * Outcome of {@link #verify}
+     *
+     * @param changes            Number of changes recorded
+     * @param unique             Number of distinct changes recorded
+     * @param transactions       Number of distinct transactions the changes belong to
+     * @param duplicates         Number of changes recorded more than once, counting every repeat
+     * @param gaps               Number of changes missing from the transactions that were seen
+     * @param orderingViolations Number of changes recorded out of (txId, seq) order by the thread that saw them
+     */
+    public record Report(long changes, long unique, long transactions, long duplicates, long gaps, long orderingViolations) implements Serializable {
+        public static final Report NONE = new Report(0, 0, 0, 0, 0, 0);
+
+        /**
+         * Number of written changes that were never seen, including those still on their way when the client stopped
+         */
+        public long unseen(long written) {
+            return Math.max(0, written - unique);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.neo4j.cdcstresstest.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Fixed-size log-linear histogram in the style of HdrHistogram. Values are bucketed by their highest bit and then
+ * linearly within each power of two, which keeps the relative error below 1/64 for any value.
+ * Not thread safe: record on one thread, {@link #add} the per-thread histograms together afterwards.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int NUM_COUNTS = (64 - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[NUM_COUNTS];
+    private long count;
+    private long max;
+    private long sum;
+
+    /**
+     * Record a value. Negative values, which clock skew between client and server can produce, count as 0.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_COUNTS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : sum / (double) count;
+    }
+
+    /**
+     * The smallest recorded value that the given percentage of values are at or below, to within the bucket precision.
+     *
+     * @param percentile Between 0 and 100
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        var target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        var seen = 0L;
+        for (int i = 0; i < NUM_COUNTS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, highestValueAt(i));
+            }
+        }
+        return max;
+    }
+
+    public Summary summary() {
+        return new Summary(count, percentile(50), percentile(99), percentile(99.9), max);
+    }
+
+    private static int indexOf(long value) {
+        var shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        if (shift == 0) {
+            return (int) value;
+        }
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+        var shift = index / SUB_BUCKET_HALF - 1;
+        var subBucket = index - shift * SUB_BUCKET_HALF;
+        return ((subBucket + 1L) << shift) - 1;
+    }
+
+    /**
+     * Percentiles of a histogram, in whatever unit was recorded.
+     */
+    public record Summary(long count, long p50, long p99, long p999, long max) implements Serializable {
+        public static final Summary NONE = new Summary(0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,202 @@
+package org.neo4j.cdcstresstest.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.neo4j.cdcstresstest.client.CDCClient;
+import org.neo4j.cdcstresstest.client.ChangeSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples a running client at a fixed interval, so lag building up is visible while a test runs rather than after.
+ * <p>
+ * Every sample compares the newest change id of the database with the last one the client received, and turns the
+ * client's counters into rates over the last interval. Samples are appended to a JSON lines file, and the latest one
+ * is served in the Prometheus text format on {@code http://localhost:<port>/metrics}.
+ */
+public class TelemetrySampler implements AutoCloseable {
+
+    private final CDCClient client;
+    private final ChangeSource source;
+    private final long intervalMillis;
+    private final BufferedWriter jsonLines;
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Sample latest;
+    private CDCClient.Progress previous = CDCClient.Progress.NONE;
+    private long previousNanos;
+
+    /**
+     * @param source         Where to ask for the newest change id, usually a source of its own next to the client's
+     * @param intervalMillis Time between samples
+     * @param jsonLines      File to append a line per sample to, or null
+     * @param port           Port to serve /metrics on, or -1 for no HTTP endpoint
+     */
+    public TelemetrySampler(CDCClient client, ChangeSource source, long intervalMillis, Path jsonLines, int port) {
+        this.client = client;
+        this.source = source;
+        this.intervalMillis = intervalMillis;
+        try {
+            this.jsonLines = jsonLines == null ? null : Files.newBufferedWriter(jsonLines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            this.server = port < 0 ? null : HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not set up telemetry", e);
+        }
+        if (server != null) {
+            server.createContext("/metrics", exchange -> {
+                var sample = latest;
+                var body = (sample == null ? "" : sample.toPrometheus()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+                exchange.sendResponseHeaders(200, body.length);
+                try (var out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "TelemetrySampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        previousNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::sampleSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        if (server != null) {
+            server.start();
+            System.out.println("Serving telemetry on http://localhost:" + server.getAddress().getPort() + "/metrics");
+        }
+    }
+
+    public Sample latest() {
+        return latest;
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            // Keep sampling, a failed db.cdc.current() should not end the telemetry of the whole run
+            System.err.println("Telemetry sample failed: " + e.getMessage());
+        }
+    }
+
+    private void sample() {
+        var current = source.current();
+        var progress = client.progress();
+        var now = System.nanoTime();
+        var nowMicros = WallClock.nowMicros();
+        var seconds = (now - previousNanos) / 1e9;
+
+        // Counters restart with every run, so a drop means a new run started during the interval
+        var restarted = progress.seen() < previous.seen();
+        var before = restarted ? CDCClient.Progress.NONE : previous;
+        var caughtUp = current.equals(progress.lastSeenId());
+        var backlog = progress.seen() - progress.processed();
+        var sample = new Sample(
+                System.currentTimeMillis(),
+                current,
+                progress.lastSeenId(),
+                caughtUp,
+                caughtUp || progress.lastSeenCommitMicros() == 0 ? 0 : (nowMicros - progress.lastSeenCommitMicros()) / 1000,
+                backlog == 0 || progress.lastProcessedCommitMicros() == 0 ? 0 : (nowMicros - progress.lastProcessedCommitMicros()) / 1000,
+                progress.seen(),
+                progress.processed(),
+                progress.queueDepth(),
+                (progress.seen() - before.seen()) / seconds,
+                (progress.processed() - before.processed()) / seconds,
+                progress.readers() == 0 ? 0 : (progress.readerWaitNanos() - before.readerWaitNanos()) / 1e9 / seconds / progress.readers()
+        );
+        previous = progress;
+        previousNanos = now;
+        latest = sample;
+        if (jsonLines != null) {
+            try {
+                jsonLines.write(sample.toJson());
+                jsonLines.newLine();
+                jsonLines.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.stop(0);
+        }
+        if (jsonLines != null) {
+            try {
+                jsonLines.close();
+            } catch (IOException e) {
+                System.err.println("Could not close telemetry file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One telemetry sample, rates are over the interval since the previous sample.
+     *
+     * @param timestamp       Wall-clock time of the sample (ms since the epoch)
+     * @param currentId       Newest change id of the database
+     * @param lastSeenId      Id of the last change the client received
+     * @param caughtUp        Whether the client has received everything up to the newest change
+     * @param receiveLagMs    Age of the last change received, 0 when caught up (ms)
+     * @param processLagMs    Age of the most recent change processed, 0 when nothing is waiting (ms)
+     * @param seen            Changes received this run
+     * @param processed       Changes processed this run
+     * @param queueDepth      Changes waiting in the hand-off
+     * @param seenRate        Changes received per second
+     * @param processedRate   Changes processed per second
+     * @param readerIdleRatio Fraction of the time the readers spent waiting for changes
+     */
+    public record Sample(long timestamp, String currentId, String lastSeenId, boolean caughtUp, long receiveLagMs,
+                         long processLagMs, long seen, long processed, int queueDepth, double seenRate,
+                         double processedRate, double readerIdleRatio) {
+
+        public String toJson() {
+            // JSON numbers take a dot whatever the default locale uses
+            return String.format(Locale.ROOT, "{\"timestamp\":%d,\"currentId\":\"%s\",\"lastSeenId\":\"%s\",\"caughtUp\":%b,\"receiveLagMs\":%d,"
+                    + "\"processLagMs\":%d,\"seen\":%d,\"processed\":%d,\"queueDepth\":%d,\"seenRate\":%.1f,"
+                    + "\"processedRate\":%.1f,\"readerIdleRatio\":%.4f}",
+                    timestamp, currentId, lastSeenId, caughtUp, receiveLagMs, processLagMs, seen, processed,
+                    queueDepth, seenRate, processedRate, readerIdleRatio);
+        }
+
+        public String toPrometheus() {
+            var text = new StringBuilder();
+            gauge(text, "cdc_client_caught_up", "1 if the client has received the newest change", caughtUp ? 1 : 0);
+            gauge(text, "cdc_client_receive_lag_seconds", "Age of the last change received", receiveLagMs / 1000.0);
+            gauge(text, "cdc_client_process_lag_seconds", "Age of the most recent change processed", processLagMs / 1000.0);
+            gauge(text, "cdc_client_seen_changes", "Changes received this run", seen);
+            gauge(text, "cdc_client_processed_changes", "Changes processed this run", processed);
+            gauge(text, "cdc_client_queue_depth", "Changes waiting in the hand-off", queueDepth);
+            gauge(text, "cdc_client_seen_rate", "Changes received per second", seenRate);
+            gauge(text, "cdc_client_processed_rate", "Changes processed per second", processedRate);
+            gauge(text, "cdc_client_reader_idle_ratio", "Fraction of the time readers waited for changes", readerIdleRatio);
+            return text.toString();
+        }
+
+        private static void gauge(StringBuilder text, String name, String help, double value) {
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                    .append("# TYPE ").append(name).append(" gauge\n")
+                    .append(name).append(' ').append(value).append('\n');
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.neo4j.cdcstresstest.metrics;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+
+/**
+ * Microsecond wall-clock time, to compare client timestamps with the commit timestamps of changes.
+ * Those come from the server's clock, so any skew between the two machines shows up in the latencies.
+ */
+public final class WallClock {
+
+    private WallClock() {
+    }
+
+    public static long nowMicros() {
+        return micros(Instant.now());
+    }
+
+    public static long micros(ZonedDateTime time) {
+        return time.toEpochSecond() * 1_000_000 + time.getNano() / 1000;
+    }
+
+    public static long micros(Instant time) {
+        return time.getEpochSecond() * 1_000_000 + time.getNano() / 1000;
+    }
+}
@@ -0,0 +1,46 @@
+package org.neo4j.cdcstresstest.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One db.cdc.query, from sending it until its last record was handed to the readers.
+ * The round trip is the part of the duration spent waiting for the first record, or for the empty result.
+ */
+@Name("cdcstress.CdcQuery")
+@Label("CDC Query")
+@Category({"CDC Stress Test", "Client"})
+@Description("A db.cdc.query and the iteration over its records")
+@StackTrace(false)
+public class CdcQueryEvent extends Event {
+
+    @Label("Labels")
+    @Description("Labels the query selects, empty for all changes")
+    public String labels;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @Description("Estimated size of the records in binary form, worked out from their values without encoding them")
+    @DataAmount
+    public long bytes;
+
+    @Label("Round Trip")
+    @Description("Time until the first record arrived")
+    @Timespan
+    public long roundTrip;
+
+    /**
+     * Call once the first record arrived, or the query turned out to be empty
+     */
+    public void firstRecord(long queryStartNanos) {
+        roundTrip = System.nanoTime() - queryStartNanos;
+    }
+}
@@ -0,0 +1,35 @@
+package org.neo4j.cdcstresstest.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One write of the change maker: a create or delete statement, a workload batch, or a pipelined transaction.
+ * Pipelined transactions complete on a driver thread, so their events are committed there.
+ */
+@Name("cdcstress.ChangeMakerBatch")
+@Label("Change Maker Batch")
+@Category({"CDC Stress Test", "Load"})
+@Description("A batch of changes written by the change maker")
+@StackTrace(false)
+public class ChangeMakerBatchEvent extends Event {
+
+    public static final String CREATE = "create";
+    public static final String DELETE = "delete";
+    public static final String WORKLOAD = "workload";
+    public static final String TRANSACTION = "transaction";
+
+    @Label("Worker")
+    public int worker;
+
+    @Label("Operation")
+    @Description("create, delete, workload or transaction")
+    public String operation;
+
+    @Label("Changes")
+    public int changes;
+}
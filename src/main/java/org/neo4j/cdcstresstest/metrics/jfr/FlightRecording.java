@@ -0,0 +1,68 @@
+package org.neo4j.cdcstresstest.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * A JFR recording of a single test run, written to a file of its own when the run ends, so every profile lines up
+ * with one rate step. Records the JDK's profiling settings together with the events of this package.
+ */
+public class FlightRecording implements AutoCloseable {
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            CdcQueryEvent.class, IdleBackoffEvent.class, HandOffWaitEvent.class, ChangeMakerBatchEvent.class);
+
+    private final Recording recording;
+    private final Path file;
+
+    private FlightRecording(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    /**
+     * @param directory Where to write the recording, or null to not record
+     * @param name      Name of the run, the file is called after it
+     * @return The started recording, or null if there is no directory
+     */
+    public static FlightRecording start(Path directory, String name) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+            var recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName(name);
+            recording.setToDisk(true);
+            for (var event : EVENTS) {
+                recording.enable(event);
+            }
+            var file = directory.resolve(name + ".jfr");
+            recording.setDestination(file);
+            recording.start();
+            return new FlightRecording(recording, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start recording " + name, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("JFR profile settings are not readable", e);
+        }
+    }
+
+    /**
+     * Stop recording and write the file
+     */
+    @Override
+    public void close() {
+        recording.stop();
+        recording.close();
+        System.out.println("Recorded " + file);
+    }
+}
@@ -0,0 +1,37 @@
+package org.neo4j.cdcstresstest.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A reader waiting for a change, or the fetcher waiting for room, in the hand-off between them.
+ * Readers poll without waiting while they fill a batch, so only waits above the threshold are recorded.
+ */
+@Name("cdcstress.HandOffWait")
+@Label("Hand-off Wait")
+@Category({"CDC Stress Test", "Client"})
+@Description("Time a reader waited for a change, or the fetcher for room in the hand-off")
+@StackTrace(false)
+@Threshold("1 ms")
+public class HandOffWaitEvent extends Event {
+
+    public static final String READER = "reader";
+    public static final String FETCHER = "fetcher";
+
+    @Label("Side")
+    @Description("reader waiting for a change, or fetcher waiting for room")
+    public String side;
+
+    @Label("Reader")
+    @Description("Index of the waiting reader, -1 for the fetcher")
+    public int reader;
+
+    @Label("Timed Out")
+    @Description("Whether a reader gave up without a change")
+    public boolean timedOut;
+}
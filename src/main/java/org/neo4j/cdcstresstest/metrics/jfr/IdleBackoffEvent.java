@@ -0,0 +1,22 @@
+package org.neo4j.cdcstresstest.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A fetcher waiting before its next query, because the last one returned only a few changes
+ */
+@Name("cdcstress.IdleBackoff")
+@Label("Idle Backoff")
+@Category({"CDC Stress Test", "Client"})
+@Description("Delay before the next db.cdc.query after one that returned few changes")
+@StackTrace(false)
+public class IdleBackoffEvent extends Event {
+
+    @Label("Last Query Records")
+    public int lastRecords;
+}
@@ -0,0 +1,127 @@
+package org.neo4j.cdcstresstest.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the results of a benchmark with those of an earlier build, read from the CSV file
+ * {@link MatrixRunner#writeCsv} wrote for it.
+ * <p>
+ * A metric only counts as changed when its mean moved by more than the tolerance in either direction <em>and</em> the
+ * confidence intervals of the two builds do not overlap, so run-to-run noise does not raise false alarms. Metrics
+ * that were 0 in the baseline, like lost changes, change on the interval test alone.
+ */
+class BaselineComparator {
+
+    private final Map<BenchmarkMatrix.Scenario, Map<MatrixRunner.Metric, Estimate>> baseline;
+    private final double tolerance;
+
+    enum Verdict {
+        REGRESSION, IMPROVEMENT, UNCHANGED, NO_BASELINE
+    }
+
+    /**
+     * @param change Relative change of the mean, positive when the value went up
+     */
+    record Comparison(BenchmarkMatrix.Scenario scenario, MatrixRunner.Metric metric, Estimate baseline,
+                      Estimate current, double change, Verdict verdict) {
+
+        @Override
+        public String toString() {
+            if (verdict == Verdict.NO_BASELINE) {
+                return "%-12s %s, %s: %s".formatted(verdict, scenario, metric.column, current);
+            }
+            return "%-12s %s, %s: %s -> %s (%+.1f%%)".formatted(
+                    verdict, scenario, metric.column, baseline, current, change * 100);
+        }
+    }
+
+    /**
+     * @param tolerance Smallest relative change of a mean that counts, like 0.05
+     */
+    BaselineComparator(Path baselineCsv, double tolerance) throws IOException {
+        this.baseline = readCsv(baselineCsv);
+        this.tolerance = tolerance;
+    }
+
+    List<Comparison> compare(List<MatrixRunner.ScenarioResult> results) {
+        var comparisons = new ArrayList<Comparison>();
+        for (var result : results) {
+            var before = baseline.get(result.scenario());
+            for (var metric : MatrixRunner.Metric.values()) {
+                var current = result.estimates().get(metric);
+                var previous = before == null ? null : before.get(metric);
+                if (previous == null) {
+                    comparisons.add(new Comparison(result.scenario(), metric, null, current, 0, Verdict.NO_BASELINE));
+                    continue;
+                }
+                var change = previous.mean() == 0 ? 0 : (current.mean() - previous.mean()) / Math.abs(previous.mean());
+                comparisons.add(new Comparison(result.scenario(), metric, previous, current, change,
+                        verdict(metric, previous, current, change)));
+            }
+        }
+        return comparisons;
+    }
+
+    private Verdict verdict(MatrixRunner.Metric metric, Estimate previous, Estimate current, double change) {
+        var moved = previous.mean() == 0 ? current.mean() != 0 : Math.abs(change) > tolerance;
+        if (!moved || !current.separatedFrom(previous)) {
+            return Verdict.UNCHANGED;
+        }
+        var better = metric.higherIsBetter == current.mean() > previous.mean();
+        return better ? Verdict.IMPROVEMENT : Verdict.REGRESSION;
+    }
+
+    static void writeCsv(List<Comparison> comparisons, Path file) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add(BenchmarkMatrix.Scenario.CSV_HEADER + ",metric,baseline_mean,baseline_ci95,current_mean,current_ci95,change,verdict");
+        for (var comparison : comparisons) {
+            var baseline = comparison.baseline();
+            lines.add("%s,%s,%s,%s,%s,%s,%s,%s".formatted(
+                    comparison.scenario().toCsv(),
+                    comparison.metric().column,
+                    baseline == null ? "" : baseline.mean(),
+                    baseline == null ? "" : baseline.halfWidth(),
+                    comparison.current().mean(),
+                    comparison.current().halfWidth(),
+                    comparison.change(),
+                    comparison.verdict()));
+        }
+        Files.write(file, lines);
+    }
+
+    private static Map<BenchmarkMatrix.Scenario, Map<MatrixRunner.Metric, Estimate>> readCsv(Path file) throws IOException {
+        var lines = Files.readAllLines(file);
+        if (lines.isEmpty()) {
+            throw new IOException("Baseline " + file + " is empty");
+        }
+        var header = Arrays.asList(lines.getFirst().split(","));
+        var results = new HashMap<BenchmarkMatrix.Scenario, Map<MatrixRunner.Metric, Estimate>>();
+        for (var line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            var columns = line.split(",");
+            var estimates = new EnumMap<MatrixRunner.Metric, Estimate>(MatrixRunner.Metric.class);
+            for (var metric : MatrixRunner.Metric.values()) {
+                // Baselines of older builds may not have every metric yet
+                var mean = header.indexOf(metric.column + "_mean");
+                if (mean < 0) {
+                    continue;
+                }
+                var halfWidth = Double.parseDouble(columns[header.indexOf(metric.column + "_ci95")]);
+                var samples = Integer.parseInt(columns[header.indexOf(metric.column + "_n")]);
+                estimates.put(metric, new Estimate(Double.parseDouble(columns[mean]), 0, halfWidth, samples));
+            }
+            results.put(BenchmarkMatrix.Scenario.fromCsv(columns), estimates);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,138 @@
+package org.neo4j.cdcstresstest.profiling;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The scenarios of a benchmark: every combination of the listed values, each run a number of times after warming up.
+ * <p>
+ * A matrix can be built in code or loaded from a properties file, lists are comma separated:
+ * <pre>
+ * clients      = queue,ring,adaptive
+ * readers      = 4,8
+ * writers      = 10
+ * batchSizes   = 5000
+ * payloadBytes = 32,1024
+ * rates        = 5000,10000,20000
+ * warmups      = 1
+ * repetitions  = 5
+ * testTimeMs   = 10000
+ * </pre>
+ * See {@link MatrixBenchmark} for the client names.
+ *
+ * @param clients      Names of the client variants to run
+ * @param readers      Numbers of reader threads of the client
+ * @param writers      Numbers of change maker threads, or labels of the synthetic feed
+ * @param batchSizes   Changes per change maker batch, or per transaction of the synthetic feed
+ * @param payloadBytes Sizes of the payload on every node
+ * @param rates        Target change rates (changes/s)
+ * @param warmups      Runs per scenario before the measured ones, their results are thrown away
+ * @param repetitions  Measured runs per scenario
+ * @param testTimeMs   Length of every run
+ */
+record BenchmarkMatrix(List<String> clients, List<Integer> readers, List<Integer> writers, List<Integer> batchSizes,
+                       List<Integer> payloadBytes, List<Integer> rates, int warmups, int repetitions, int testTimeMs) {
+
+    BenchmarkMatrix {
+        clients = List.copyOf(clients);
+        readers = List.copyOf(readers);
+        writers = List.copyOf(writers);
+        batchSizes = List.copyOf(batchSizes);
+        payloadBytes = List.copyOf(payloadBytes);
+        rates = List.copyOf(rates);
+        if (repetitions < 1) {
+            throw new IllegalArgumentException("Need at least one repetition, got " + repetitions);
+        }
+        if (warmups < 0) {
+            throw new IllegalArgumentException("Warmups cannot be negative, got " + warmups);
+        }
+    }
+
+    /**
+     * One cell of the matrix
+     */
+    record Scenario(String client, int readers, int writers, int batchSize, int payloadBytes, int rate) {
+
+        static final String CSV_HEADER = "client,readers,writers,batch_size,payload_bytes,rate";
+
+        String toCsv() {
+            return "%s,%d,%d,%d,%d,%d".formatted(client, readers, writers, batchSize, payloadBytes, rate);
+        }
+
+        static Scenario fromCsv(String[] columns) {
+            return new Scenario(columns[0], Integer.parseInt(columns[1]), Integer.parseInt(columns[2]),
+                    Integer.parseInt(columns[3]), Integer.parseInt(columns[4]), Integer.parseInt(columns[5]));
+        }
+
+        @Override
+        public String toString() {
+            return "%s, %d readers, %d writers, batches of %d, %dB payload, %d ch/s".formatted(
+                    client, readers, writers, batchSize, payloadBytes, rate);
+        }
+    }
+
+    /**
+     * Every combination of the values, rates innermost so that a sweep over rates runs in one go
+     */
+    List<Scenario> scenarios() {
+        var scenarios = new ArrayList<Scenario>();
+        for (var client : clients) {
+            for (var readerCount : readers) {
+                for (var writerCount : writers) {
+                    for (var batchSize : batchSizes) {
+                        for (var payload : payloadBytes) {
+                            for (var rate : rates) {
+                                scenarios.add(new Scenario(client, readerCount, writerCount, batchSize, payload, rate));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    static BenchmarkMatrix load(Path file) throws IOException {
+        try (var reader = Files.newBufferedReader(file)) {
+            return load(reader);
+        }
+    }
+
+    static BenchmarkMatrix load(Reader reader) throws IOException {
+        var properties = new Properties();
+        properties.load(reader);
+        return fromProperties(properties);
+    }
+
+    static BenchmarkMatrix fromProperties(Properties properties) {
+        return new BenchmarkMatrix(
+                Arrays.stream(properties.getProperty("clients", "queue").split(",")).map(String::trim).toList(),
+                integers(properties, "readers", "4"),
+                integers(properties, "writers", "10"),
+                integers(properties, "batchSizes", "5000"),
+                integers(properties, "payloadBytes", "32"),
+                integers(properties, "rates", "5000"),
+                Integer.parseInt(properties.getProperty("warmups", "1").trim()),
+                Integer.parseInt(properties.getProperty("repetitions", "3").trim()),
+                Integer.parseInt(properties.getProperty("testTimeMs", "10000").trim()));
+    }
+
+    private static List<Integer> integers(Properties properties, String key, String defaultValue) {
+        return Arrays.stream(properties.getProperty(key, defaultValue).split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return "%d scenarios, %d warmups and %d runs of %ds each".formatted(
+                scenarios().size(), warmups, repetitions, testTimeMs / 1000);
+    }
+}
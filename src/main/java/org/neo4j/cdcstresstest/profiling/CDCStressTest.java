@@ -2,11 +2,31 @@ package org.neo4j.cdcstresstest.profiling;
 
 import org.neo4j.cdcstresstest.client.CDCClient;
 import org.neo4j.cdcstresstest.client.QueueBasedCDCClient;
+import org.neo4j.cdcstresstest.client.SyntheticChangeSource;
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.client.BoltChangeSource;
+import org.neo4j.cdcstresstest.client.checkpoint.CheckpointStats;
+import org.neo4j.cdcstresstest.client.handoff.QueueHandOff;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.client.polling.PollingStats;
+import org.neo4j.cdcstresstest.client.processing.ProcessingStats;
 import org.neo4j.cdcstresstest.load.CDCChangeMaker;
+import org.neo4j.cdcstresstest.metrics.ChangeTracker;
+import org.neo4j.cdcstresstest.metrics.LatencyHistogram;
+import org.neo4j.cdcstresstest.metrics.jfr.FlightRecording;
 import org.neo4j.driver.*;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 public class CDCStressTest {
 
+    // Where every run writes a JFR recording of its own, null to not record
+    private static Path recordings = null;
+    private static int runs = 0;
+
     public static void main(String[] args) throws InterruptedException {
         // Connect: uri/username/password
         // Load: rate, numThreads, batchSize
@@ -22,20 +42,73 @@ public class CDCStressTest {
         AuthToken authToken = AuthTokens.basic(username, password);
 
         var cm = new CDCChangeMaker(uri, authToken, 10, 5000);
+        // Many concurrent writers with small transactions, like production traffic
+//        var cm = new CDCChangeMaker(uri, authToken, 2000, 50, ThreadMode.VIRTUAL);
+        // Batches at fixed times, so that stalls show up as latency instead of as a lower rate
+//        var cm = new CDCChangeMaker(uri, authToken, 10, 5000, ThreadMode.PLATFORM, CDCChangeMaker.Pacing.OPEN_LOOP);
+        // Updates, relationships and label changes on skewed keys instead of create and delete, see Workload for the file format
+//        var cm = new CDCChangeMaker(uri, authToken, 10, 500, ThreadMode.PLATFORM, CDCChangeMaker.Pacing.OPEN_LOOP, Workload.load(Path.of("workload.properties")));
+        // A few writers that each keep 8 transactions of 4 batches in flight, for high rates over a long link like Aura
+//        var cm = new CDCChangeMaker(uri, authToken, 4, 5000, ThreadMode.PLATFORM, CDCChangeMaker.Pacing.OPEN_LOOP, null, new Pipelining(8, 4));
 //        var cdc = new StatisticsOnlyCDCClient(uri, authToken);
-        var cdc = new QueueBasedCDCClient(uri, authToken, 4);
+        // Polling like before adaptive polling became the default, so the numbers stay comparable with earlier runs
+        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new QueueHandOff<>(100*1000), false, ThreadMode.PLATFORM, null, null, PollingPolicy.FIXED);
+//        var cdc = new QueueBasedCDCClient(uri, authToken, 4);
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING));
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new SpillingHandOff<>(new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), new ChangeEventCodec()));
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 8, new LanedHandOff<>(8, lane -> new RingBufferHandOff<>(16*1024, WaitStrategy.Type.BLOCKING), ChangeEvent::entityHash));
+//        var cdc = new PipelinedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), 2000);
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), true);
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 64, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), false, ThreadMode.VIRTUAL);
+        // Readers pass batches of up to 100 changes to 8 pool threads that spend 20us of CPU per change and 2ms per sink call
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), false, ThreadMode.PLATFORM, new ProcessingStage(new SimulatedProcessor(20*1000, 0, 2000), 100, 8, 16));
+        // Saving the processed position every 10ms, try 0, 1, 10 and 100 to see what durability costs
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), false, ThreadMode.PLATFORM, null, new CheckpointStore(Path.of("cdc.checkpoint"), 10, false));
+        // The same processing, then appending every change to 64MB segments in ./sink that are synced every 10ms
+//        var cdc = new QueueBasedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), false, ThreadMode.PLATFORM, new ProcessingStage(new SimulatedProcessor(20*1000, 0, 0).andThen(new SegmentedLogSink(Path.of("sink"), 64*1024*1024, 4, SegmentedLogSink.FsyncPolicy.every(10))), 100, 8, 16));
+        // 4 cursors that each select the changes of a quarter of the writers, merged back into commit order
+//        var cdc = new ShardedCDCClient(new BoltChangeSource(uri, authToken), 4, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), cm.labels(), 4, ShardedCDCClient.Order.COMMIT);
+
+        // Record every run with JFR, into recordings/run-001-5000chs.jfr and so on, to open next to its row of results
+        // (a SeparateJvmTest records in both forked JVMs, run-001-5000chs-client.jfr and run-001-5000chs-changeMaker.jfr)
+//        recordings = Path.of("recordings");
 
         // Profiling around the localhost <=> aura limit of 20k changes per second
         // This limit seems to be mainly influenced by the network speed
         profile(uri, authToken, cdc, cm, 5*1000, 5*1000, 30*1000);
 
+        // the same, while sampling lag and rates every second to telemetry.jsonl and http://localhost:9464/metrics
+//        try (var telemetry = new TelemetrySampler(cdc, new BoltChangeSource(uri, authToken), 1000, Path.of("telemetry.jsonl"), 9464)) {
+//            telemetry.start();
+//            profile(uri, authToken, cdc, cm, 5*1000, 5*1000, 30*1000);
+//        }
+
         // profiling around the localhost <=> localhost limit of 200k changes per second
 //        profile(uri, authToken, cdc, cm, 150*1000, 10*1000, 250*1000);
 
+        // searching for the limit instead of sweeping: doubling from 5k, then bisecting down to 5%
+//        findSaturation(uri, authToken, cdc, cm, 5*1000, 1000*1000);
+
+        // profiling the client on its own against an in-process change feed, no server or network involved
+//        var source = new SyntheticChangeSource(32);
+//        profileSynthetic(new QueueBasedCDCClient(source, 4), source, 200*1000, 200*1000, 2000*1000);
+//        findSyntheticSaturation(new QueueBasedCDCClient(source, 4), source, 50*1000, 10*1000*1000);
+
+        // the same changes read by one client per polling policy at once, at a rate low enough for the delays to matter
+//        comparePolling(uri, authToken, cm, 2*1000, List.of(PollingPolicy.FIXED, PollingPolicy.TIGHT, PollingPolicy.ADAPTIVE));
+//        compareSyntheticPolling(source, 2*1000, List.of(PollingPolicy.FIXED, PollingPolicy.TIGHT, PollingPolicy.ADAPTIVE));
+
+        // the change maker and the client each in a JVM of its own with its own heap, so neither one's threads and GC pauses end up in the other's numbers
+//        try (var separate = new SeparateJvmTest(uri, authToken, "ring", 4, 10, 5000, List.of("-Xmx4g"), List.of("-Xmx1g"))) {
+//            profileSeparate(separate, 5*1000, 5*1000, 30*1000);
+//        }
+
         // one-off test
 //        System.out.println(TestResult.headers());
 //        var testResult = performanceTest(uri, authToken, cdc, cm, 190*1000, 30*1000);
 //        System.out.println(testResult);
+
+        cdc.close();
     }
 
     private static void profile(String uri, AuthToken authToken, CDCClient cdc, CDCChangeMaker cm, int initialRate, int rateIncrement, int finalRate) throws InterruptedException {
@@ -49,7 +122,96 @@ public class CDCStressTest {
         }
     }
 
-    private static void deleteAllNodes(String uri, AuthToken authToken) {
+    private static void profileSynthetic(CDCClient cdc, SyntheticChangeSource source, int initialRate, int rateIncrement, int finalRate) throws InterruptedException {
+        var rate = initialRate;
+        var testTime = 10*1000;
+        System.out.println(TestResult.headers());
+        while (rate <= finalRate) {
+            var testResult = syntheticPerformanceTest(cdc, source, rate, testTime);
+            System.out.println(testResult);
+            rate += rateIncrement;
+        }
+    }
+
+    private static void profileSeparate(SeparateJvmTest test, int initialRate, int rateIncrement, int finalRate) throws InterruptedException {
+        var rate = initialRate;
+        var testTime = 10*1000;
+        System.out.println(TestResult.headers());
+        while (rate <= finalRate) {
+            var testResult = test.performanceTest(rate, testTime, 32);
+            System.out.println(testResult);
+            rate += rateIncrement;
+        }
+    }
+
+    private static void findSaturation(String uri, AuthToken authToken, CDCClient cdc, CDCChangeMaker cm, int initialRate, int maxRate) throws InterruptedException {
+        var testTime = 10*1000;
+        var finder = new SaturationFinder(rate -> performanceTest(uri, authToken, cdc, cm, rate, testTime), 3, 2.0, 0.05);
+        System.out.println(finder.find(initialRate, maxRate));
+    }
+
+    private static void findSyntheticSaturation(CDCClient cdc, SyntheticChangeSource source, int initialRate, int maxRate) throws InterruptedException {
+        var testTime = 10*1000;
+        var finder = new SaturationFinder(rate -> syntheticPerformanceTest(cdc, source, rate, testTime), 3, 2.0, 0.05);
+        System.out.println(finder.find(initialRate, maxRate));
+    }
+
+    /**
+     * Read the same changes with one client per polling policy side by side, so every policy sees exactly the same load
+     */
+    private static void comparePolling(String uri, AuthToken authToken, CDCChangeMaker cm, int rate, List<PollingPolicy> policies) throws InterruptedException {
+        var testTime = 10*1000;
+        deleteAllNodes(uri, authToken);
+        Thread.sleep(1000);
+        var current = currentChangeId(uri, authToken);
+        // One driver for all clients, every client's fetcher opens a session of its own on it
+        try (var source = new BoltChangeSource(uri, authToken)) {
+            var clients = new ArrayList<CDCClient>();
+            for (var policy : policies) {
+                clients.add(new QueueBasedCDCClient(source, 4, new QueueHandOff<>(100*1000), false, ThreadMode.PLATFORM, null, null, policy));
+            }
+            clients.forEach(cdc -> cdc.start(current));
+            cm.start(testTime, rate, 32);
+            Thread.sleep(testTime);
+            printPollingComparison(clients);
+            cm.waitForResults();
+        }
+    }
+
+    private static void compareSyntheticPolling(SyntheticChangeSource source, int rate, List<PollingPolicy> policies) throws InterruptedException {
+        var testTime = 10*1000;
+        var current = source.current();
+        var clients = new ArrayList<CDCClient>();
+        for (var policy : policies) {
+            clients.add(new QueueBasedCDCClient(source, 4, new QueueHandOff<>(100*1000), false, ThreadMode.PLATFORM, null, null, policy));
+        }
+        clients.forEach(cdc -> cdc.start(current));
+        source.start(rate);
+        Thread.sleep(testTime);
+        source.stop();
+        printPollingComparison(clients);
+    }
+
+    private static void printPollingComparison(List<CDCClient> clients) throws InterruptedException {
+        var template = "%50s,%15s,%15s,%15s,%15s,%15s,%15s,%15s";
+        System.out.println(template.formatted("Polling", "Changes seen", "Query rate", "Empty polls", "Time waited",
+                "Poll added p50", "Poll added p99", "Receive p99"));
+        for (var cdc : clients) {
+            var result = cdc.waitForResults();
+            var polling = result.polling();
+            System.out.println(template.formatted(
+                    polling.policy(),
+                    readable(result.numRecordsSeen(), "chgs"),
+                    readable(polling.queriesPerSecond(result.duration()), "q/s"),
+                    readable(polling.emptyRatio() * 100, "%"),
+                    readable(polling.delayTime()/1000.0, "s"),
+                    readable(polling.addedLatency().p50()/1000.0, "ms"),
+                    readable(polling.addedLatency().p99()/1000.0, "ms"),
+                    readable(result.receiveLatency().p99()/1000.0, "ms")));
+        }
+    }
+
+    static void deleteAllNodes(String uri, AuthToken authToken) {
         try(var driver = GraphDatabase.driver(uri, authToken);
             var session = driver.session()) {
             session
@@ -58,7 +220,7 @@ public class CDCStressTest {
         }
     }
 
-    private static String currentChangeId(String uri, AuthToken authToken) {
+    static String currentChangeId(String uri, AuthToken authToken) {
         try(var driver = GraphDatabase.driver(uri, authToken);
             var session = driver.session()) {
             return session
@@ -76,10 +238,24 @@ public class CDCStressTest {
             long totalCdcTime,
             float averageRecordSize,
             int rate,
-            int testTime
+            int testTime,
+            CDCClient.HandOffStats handOffStats,
+            float readerSkew,
+            float maxReaderRate,
+            LatencyHistogram.Summary receiveLatency,
+            LatencyHistogram.Summary processLatency,
+            ChangeTracker.Report verification,
+            ProcessingStats processing,
+            CheckpointStats checkpoints,
+            PollingStats polling,
+            LatencyHistogram.Summary writeLatency,
+            LatencyHistogram.Summary batchLatency,
+            LatencyHistogram.Summary startLag,
+            long changesBehind,
+            int peakThreads
     ) {
         private static final String template =
-                "%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s";
+                "%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s,%15s";
         public static String headers() {
             return
                     template.formatted(
@@ -92,7 +268,49 @@ public class CDCStressTest {
                             "Total changes processed by CDC",
                             "Total time spent in CDC",
                             "Effective CDC download rate",
-                            "Effective CDC process rate"
+                            "Effective CDC process rate",
+                            "Avg queue depth",
+                            "Max queue depth",
+                            "Reader wait time",
+                            "Fetcher blocked time",
+                            "Spilled bytes",
+                            "Spill time",
+                            "Heap per change",
+                            "Reader skew",
+                            "Busiest reader rate",
+                            "Receive p50",
+                            "Receive p99",
+                            "Receive p99.9",
+                            "Receive max",
+                            "Process p50",
+                            "Process p99",
+                            "Process p99.9",
+                            "Process max",
+                            "Duplicates",
+                            "Seq gaps",
+                            "Out of order",
+                            "Unseen changes",
+                            "Max processing backlog",
+                            "Processing utilization",
+                            "Readers blocked by processing",
+                            "Failed to process",
+                            "Checkpoint syncs",
+                            "Checkpoint sync time",
+                            "Changes per checkpoint",
+                            "Sink rate",
+                            "Sink bytes",
+                            "Fsync p99",
+                            "Fsync max",
+                            "Query rate",
+                            "Empty polls",
+                            "Poll added p99",
+                            "Write p99",
+                            "Write max",
+                            "Batch p99 (CO corrected)",
+                            "Batch max (CO corrected)",
+                            "Max start lag",
+                            "Changes behind",
+                            "Peak OS threads"
                     );
         }
 
@@ -108,7 +326,49 @@ public class CDCStressTest {
                     readable(totalProcessed, "chgs"),
                     readable(totalCdcTime/1000.0, "s"),
                     readable(totalCaptured/(totalCdcTime/1000.0), "ch/s"),
-                    readable(totalProcessed/(totalCdcTime/1000.0), "ch/s")
+                    readable(totalProcessed/(totalCdcTime/1000.0), "ch/s"),
+                    readable(handOffStats.avgQueueDepth(), "chgs"),
+                    readable(handOffStats.maxQueueDepth(), "chgs"),
+                    readable(handOffStats.readerWaitTime()/1000.0, "s"),
+                    readable(handOffStats.fetcherBlockedTime()/1000.0, "s"),
+                    readable(handOffStats.spill().bytes(), "B"),
+                    readable(handOffStats.spill().time()/1000.0/1000/1000, "s"),
+                    readable(handOffStats.heapPerChange(), "B"),
+                    readable(readerSkew, "x"),
+                    readable(maxReaderRate, "ch/s"),
+                    readable(receiveLatency.p50()/1000.0, "ms"),
+                    readable(receiveLatency.p99()/1000.0, "ms"),
+                    readable(receiveLatency.p999()/1000.0, "ms"),
+                    readable(receiveLatency.max()/1000.0, "ms"),
+                    readable(processLatency.p50()/1000.0, "ms"),
+                    readable(processLatency.p99()/1000.0, "ms"),
+                    readable(processLatency.p999()/1000.0, "ms"),
+                    readable(processLatency.max()/1000.0, "ms"),
+                    readable(verification.duplicates(), "chgs"),
+                    readable(verification.gaps(), "chgs"),
+                    readable(verification.orderingViolations(), "chgs"),
+                    readable(verification.unseen(totalChanges), "chgs"),
+                    readable(processing.maxBacklog(), "chgs"),
+                    readable(processing.utilization(totalCdcTime) * 100, "%"),
+                    readable(processing.readerBlockedTime()/1000.0, "s"),
+                    readable(processing.failed(), "chgs"),
+                    readable(checkpoints.syncs(), "syncs"),
+                    readable(checkpoints.syncTime()/1000.0, "s"),
+                    readable(checkpoints.averageGroup(), "chgs"),
+                    readable(processing.sink().records()/(totalCdcTime/1000.0), "ch/s"),
+                    readable(processing.sink().bytes(), "B"),
+                    readable(processing.sink().syncLatency().p99()/1000.0, "ms"),
+                    readable(processing.sink().syncLatency().max()/1000.0, "ms"),
+                    readable(polling.queriesPerSecond(totalCdcTime), "q/s"),
+                    readable(polling.emptyRatio() * 100, "%"),
+                    readable(polling.addedLatency().p99()/1000.0, "ms"),
+                    readable(writeLatency.p99()/1000.0, "ms"),
+                    readable(writeLatency.max()/1000.0, "ms"),
+                    readable(batchLatency.p99()/1000.0, "ms"),
+                    readable(batchLatency.max()/1000.0, "ms"),
+                    readable(startLag.max()/1000.0, "ms"),
+                    readable(changesBehind, "chgs"),
+                    readable(peakThreads, "thr")
             );
         }
     }
@@ -127,23 +387,66 @@ public class CDCStressTest {
         }
     }
 
-    private static Object performanceTest(String uri, AuthToken authToken, CDCClient cdc, CDCChangeMaker cm, int rate, int testTime) throws InterruptedException {
+    /**
+     * Where every run writes a JFR recording of its own, null to not record
+     */
+    static Path recordings() {
+        return recordings;
+    }
+
+    /**
+     * Name of the next run, to call its recording after
+     */
+    static String runName(int rate) {
+        return "run-%03d-%dchs".formatted(++runs, rate);
+    }
+
+    private static TestResult performanceTest(String uri, AuthToken authToken, CDCClient cdc, CDCChangeMaker cm, int rate, int testTime) throws InterruptedException {
+        return performanceTest(uri, authToken, cdc, cm, rate, testTime, 32);
+    }
+
+    /**
+     * @param payloadBytes Size of the payload on every node the change maker creates
+     */
+    static TestResult performanceTest(String uri, AuthToken authToken, CDCClient cdc, CDCChangeMaker cm, int rate, int testTime, int payloadBytes) throws InterruptedException {
         // Clean slate
         deleteAllNodes(uri, authToken);
         Thread.sleep(1000);
         var current = currentChangeId(uri, authToken);
+        // Virtual threads do not count, this is the number of platform threads the test needed
+        var threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
 
-        // Begin querying for changes & making changes
-        cdc.start(current);
-        cm.start(testTime, rate, 32);
-        Thread.sleep(testTime);
+        CDCClient.RunResult cdcRes;
+        CDCChangeMaker.ChangeMakerResult cmRes;
+        var recording = FlightRecording.start(recordings, runName(rate));
+        try {
+            // Begin querying for changes & making changes
+            cdc.start(current);
+            cm.start(testTime, rate, payloadBytes);
+            Thread.sleep(testTime);
 
-        // Notify the client to stop and wait for the latest call to `db.cdc.query` to finish
-        var cdcRes = cdc.waitForResults();
-        // Notify the change maker to stop
-        var cmRes = cm.waitForResults();
+            // Notify the client to stop and wait for the latest call to `db.cdc.query` to finish
+            cdcRes = cdc.waitForResults();
+            // Notify the change maker to stop
+            cmRes = cm.waitForResults();
+        } finally {
+            // No recording without a directory to write it to
+            if (recording != null) {
+                recording.close();
+            }
+        }
 
         // Report results
+        return testResult(rate, testTime, cdcRes, cmRes, threads.getPeakThreadCount());
+    }
+
+    /**
+     * One row of results, from what the client and the change maker reported about the same run
+     *
+     * @param peakThreads Most platform threads alive during the run
+     */
+    static TestResult testResult(int rate, int testTime, CDCClient.RunResult cdcRes, CDCChangeMaker.ChangeMakerResult cmRes, int peakThreads) {
         var targetChanges = rate*testTime/1000;
         return new TestResult(
                 targetChanges,
@@ -153,6 +456,68 @@ public class CDCStressTest {
                 cdcRes.numRecordsProcessed(),
                 cdcRes.duration(),
                 cdcRes.averageRecordSize(),
-                rate, testTime);
+                rate, testTime,
+                cdcRes.handOffStats(),
+                cdcRes.readerSkew(),
+                cdcRes.maxReaderRate(),
+                cdcRes.receiveLatency(),
+                cdcRes.processLatency(),
+                cdcRes.verification(),
+                cdcRes.processing(),
+                cdcRes.checkpoints(),
+                cdcRes.polling(),
+                cmRes.writeLatency(),
+                cmRes.batchLatency(),
+                cmRes.startLag(),
+                cmRes.changesBehind(),
+                peakThreads);
+    }
+
+    static TestResult syntheticPerformanceTest(CDCClient cdc, SyntheticChangeSource source, int rate, int testTime) throws InterruptedException {
+        var current = source.current();
+        var threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long emitted;
+        CDCClient.RunResult cdcRes;
+        var recording = FlightRecording.start(recordings, runName(rate));
+        try {
+            // The synthetic feed stands in for the change maker, it emits changes at exactly the requested rate
+            cdc.start(current);
+            source.start(rate);
+            Thread.sleep(testTime);
+            emitted = source.stop();
+
+            cdcRes = cdc.waitForResults();
+        } finally {
+            if (recording != null) {
+                recording.close();
+            }
+        }
+
+        var targetChanges = rate*testTime/1000;
+        return new TestResult(
+                targetChanges,
+                (int) emitted,
+                testTime,
+                cdcRes.numRecordsSeen(),
+                cdcRes.numRecordsProcessed(),
+                cdcRes.duration(),
+                cdcRes.averageRecordSize(),
+                rate, testTime,
+                cdcRes.handOffStats(),
+                cdcRes.readerSkew(),
+                cdcRes.maxReaderRate(),
+                cdcRes.receiveLatency(),
+                cdcRes.processLatency(),
+                cdcRes.verification(),
+                cdcRes.processing(),
+                cdcRes.checkpoints(),
+                cdcRes.polling(),
+                LatencyHistogram.Summary.NONE,
+                LatencyHistogram.Summary.NONE,
+                LatencyHistogram.Summary.NONE,
+                Math.max(0, targetChanges - emitted),
+                threads.getPeakThreadCount());
     }
 }
@@ -0,0 +1,63 @@
+package org.neo4j.cdcstresstest.profiling;
+
+/**
+ * The mean of repeated measurements with a 95% confidence interval, from the Student t distribution since
+ * benchmarks rarely repeat a run more than a handful of times.
+ *
+ * @param mean      Average of the samples
+ * @param stddev    Sample standard deviation
+ * @param halfWidth Half the width of the 95% confidence interval around the mean, 0 with fewer than two samples
+ * @param samples   Number of samples
+ */
+record Estimate(double mean, double stddev, double halfWidth, int samples) {
+
+    // Two-sided 95% critical values of the t distribution for 1 to 30 degrees of freedom
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double Z_95 = 1.960;
+
+    static Estimate of(double[] values) {
+        var n = values.length;
+        if (n == 0) {
+            return new Estimate(Double.NaN, 0, 0, 0);
+        }
+        var sum = 0.0;
+        for (var value : values) {
+            sum += value;
+        }
+        var mean = sum / n;
+        if (n == 1) {
+            return new Estimate(mean, 0, 0, 1);
+        }
+        var squares = 0.0;
+        for (var value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        var stddev = Math.sqrt(squares / (n - 1));
+        var t = n - 1 <= T_95.length ? T_95[n - 2] : Z_95;
+        return new Estimate(mean, stddev, t * stddev / Math.sqrt(n), n);
+    }
+
+    double low() {
+        return mean - halfWidth;
+    }
+
+    double high() {
+        return mean + halfWidth;
+    }
+
+    /**
+     * Whether the two intervals have no value in common, a conservative sign that the means really differ
+     */
+    boolean separatedFrom(Estimate other) {
+        return high() < other.low() || other.high() < low();
+    }
+
+    @Override
+    public String toString() {
+        return "%.2f +/- %.2f".formatted(mean, halfWidth);
+    }
+}
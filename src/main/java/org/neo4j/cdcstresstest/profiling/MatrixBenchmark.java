@@ -0,0 +1,172 @@
+package org.neo4j.cdcstresstest.profiling;
+
+import org.neo4j.cdcstresstest.client.BoltChangeSource;
+import org.neo4j.cdcstresstest.client.CDCClient;
+import org.neo4j.cdcstresstest.client.ChangeEvent;
+import org.neo4j.cdcstresstest.client.ChangeSource;
+import org.neo4j.cdcstresstest.client.PipelinedCDCClient;
+import org.neo4j.cdcstresstest.client.QueueBasedCDCClient;
+import org.neo4j.cdcstresstest.client.RecordDroppingCDCClient;
+import org.neo4j.cdcstresstest.client.ShardedCDCClient;
+import org.neo4j.cdcstresstest.client.SyntheticChangeSource;
+import org.neo4j.cdcstresstest.ThreadMode;
+import org.neo4j.cdcstresstest.client.handoff.LanedHandOff;
+import org.neo4j.cdcstresstest.client.handoff.QueueHandOff;
+import org.neo4j.cdcstresstest.client.handoff.RingBufferHandOff;
+import org.neo4j.cdcstresstest.client.handoff.WaitStrategy;
+import org.neo4j.cdcstresstest.client.handoff.HandOff;
+import org.neo4j.cdcstresstest.client.polling.PollingPolicy;
+import org.neo4j.cdcstresstest.load.CDCChangeMaker;
+import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.AuthTokens;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a {@link BenchmarkMatrix} read from a properties file, writes the results to {@code results.csv} and
+ * {@code results.json} and, when a baseline is given, compares them with it and exits with 1 on a regression.
+ * <p>
+ * Besides the matrix, the file takes:
+ * <pre>
+ * source    = bolt             # or synthetic, to benchmark the client without a server
+ * output    = benchmark-results
+ * baseline  = baseline/results.csv
+ * tolerance = 0.05             # smallest relative change of a mean that counts as a regression
+ * </pre>
+ * The clients are:
+ * <ul>
+ *     <li>queue: {@link QueueBasedCDCClient} with its default queue</li>
+ *     <li>ring: the same with a blocking ring buffer</li>
+ *     <li>laned: the same with one ring buffer lane per reader</li>
+ *     <li>adaptive: the default queue with {@link PollingPolicy#ADAPTIVE}</li>
+ *     <li>sharded: {@link ShardedCDCClient} with up to 4 shards in commit order</li>
+ *     <li>pipelined: {@link PipelinedCDCClient}, bolt only</li>
+ *     <li>dropping: {@link RecordDroppingCDCClient}, which counts the changes and throws them away</li>
+ * </ul>
+ * All but adaptive poll like they did before adaptive polling became the default of the clients, {@link PollingPolicy#FIXED}
+ * or {@link PollingPolicy#TIGHT} for dropping, so that their results stay comparable with older baselines.
+ * The bolt source reads the NEO4J_URI, NEO4J_USERNAME and NEO4J_PASSWORD environment variables like
+ * {@link CDCStressTest}.
+ */
+public class MatrixBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var file = Path.of(args.length > 0 ? args[0] : "benchmark.properties");
+        var properties = new Properties();
+        try (var reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        var matrix = BenchmarkMatrix.fromProperties(properties);
+        var output = Path.of(properties.getProperty("output", "benchmark-results").trim());
+        var baseline = properties.getProperty("baseline", "").trim();
+        var tolerance = Double.parseDouble(properties.getProperty("tolerance", "0.05").trim());
+
+        MatrixRunner.Environment environment;
+        if (properties.getProperty("source", "bolt").trim().equals("synthetic")) {
+            environment = scenario -> synthetic(scenario, matrix.testTimeMs());
+        } else {
+            var uri = System.getenv("NEO4J_URI");
+            var authToken = AuthTokens.basic(System.getenv("NEO4J_USERNAME"), System.getenv("NEO4J_PASSWORD"));
+            System.out.println("uri: " + uri);
+            environment = scenario -> bolt(uri, authToken, scenario, matrix.testTimeMs());
+        }
+
+        var results = new MatrixRunner(matrix, environment).run();
+        Files.createDirectories(output);
+        MatrixRunner.writeCsv(results, output.resolve("results.csv"));
+        MatrixRunner.writeJson(results, output.resolve("results.json"));
+        System.out.println("Results written to " + output.toAbsolutePath());
+
+        if (!baseline.isEmpty()) {
+            var comparisons = new BaselineComparator(Path.of(baseline), tolerance).compare(results);
+            comparisons.forEach(System.out::println);
+            BaselineComparator.writeCsv(comparisons, output.resolve("comparison.csv"));
+            var regressions = comparisons.stream()
+                    .filter(comparison -> comparison.verdict() == BaselineComparator.Verdict.REGRESSION)
+                    .count();
+            if (regressions > 0) {
+                System.err.println(regressions + " regressions against " + baseline);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static MatrixRunner.Trial bolt(String uri, AuthToken authToken, BenchmarkMatrix.Scenario scenario, int testTime) {
+        var source = new BoltChangeSource(uri, authToken);
+        var cm = new CDCChangeMaker(uri, authToken, scenario.writers(), scenario.batchSize());
+        CDCClient cdc;
+        try {
+            cdc = client(scenario.client(), scenario.readers(), source, cm.labels());
+        } catch (IllegalArgumentException e) {
+            cm.close();
+            source.close();
+            throw e;
+        }
+        return new MatrixRunner.Trial() {
+            @Override
+            public CDCStressTest.TestResult run() throws InterruptedException {
+                return CDCStressTest.performanceTest(uri, authToken, cdc, cm, scenario.rate(), testTime,
+                        scenario.payloadBytes());
+            }
+
+            @Override
+            public void close() {
+                cdc.close();
+                cm.close();
+                source.close();
+            }
+        };
+    }
+
+    private static MatrixRunner.Trial synthetic(BenchmarkMatrix.Scenario scenario, int testTime) {
+        // The writers of the change maker become the labels of the feed, its batches the transactions
+        var source = new SyntheticChangeSource(scenario.payloadBytes(), scenario.batchSize(), scenario.writers(), 10*1000);
+        var labels = IntStream.range(0, scenario.writers()).mapToObj(CDCChangeMaker::label).toList();
+        var cdc = client(scenario.client(), scenario.readers(), source, labels);
+        return new MatrixRunner.Trial() {
+            @Override
+            public CDCStressTest.TestResult run() throws InterruptedException {
+                return CDCStressTest.syntheticPerformanceTest(cdc, source, scenario.rate(), testTime);
+            }
+
+            @Override
+            public void close() {
+                cdc.close();
+                source.close();
+            }
+        };
+    }
+
+    /**
+     * A client by the name used in the matrix, see above
+     *
+     * @param labels The labels of the writers, for the sharded client
+     * @throws IllegalArgumentException for an unknown client, or one that cannot read from this source
+     */
+    static CDCClient client(String name, int readers, ChangeSource source, List<String> labels) {
+        return switch (name) {
+            case "queue" -> queueClient(source, readers, new QueueHandOff<>(100*1000), PollingPolicy.FIXED);
+            case "ring" -> queueClient(source, readers, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), PollingPolicy.FIXED);
+            case "laned" -> queueClient(source, readers, new LanedHandOff<>(readers, lane -> new RingBufferHandOff<>(16*1024, WaitStrategy.Type.BLOCKING), ChangeEvent::entityHash), PollingPolicy.FIXED);
+            case "adaptive" -> queueClient(source, readers, new QueueHandOff<>(100*1000), PollingPolicy.ADAPTIVE);
+            case "sharded" -> new ShardedCDCClient(source, readers, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), labels, Math.min(4, labels.size()), ShardedCDCClient.Order.COMMIT, PollingPolicy.FIXED);
+            case "pipelined" -> {
+                if (!(source instanceof BoltChangeSource bolt)) {
+                    throw new IllegalArgumentException("the pipelined client only reads from bolt");
+                }
+                yield new PipelinedCDCClient(bolt, readers, new RingBufferHandOff<>(128*1024, WaitStrategy.Type.BLOCKING), 2000, PollingPolicy.FIXED);
+            }
+            case "dropping" -> new RecordDroppingCDCClient(source, PollingPolicy.TIGHT);
+            default -> throw new IllegalArgumentException("unknown client " + name);
+        };
+    }
+
+    private static CDCClient queueClient(ChangeSource source, int readers, HandOff<ChangeEvent> queue, PollingPolicy polling) {
+        return new QueueBasedCDCClient(source, readers, queue, false, ThreadMode.PLATFORM, null, null, polling);
+    }
+}
@@ -0,0 +1,174 @@
+package org.neo4j.cdcstresstest.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs every scenario of a {@link BenchmarkMatrix}: first the warmup runs, whose results are thrown away, then the
+ * measured repetitions, which are summarised per {@link Metric} as a mean with a confidence interval.
+ * Every run is printed as it finishes, like {@link CDCStressTest#main} does, the summaries can be written as CSV and JSON.
+ */
+class MatrixRunner {
+
+    private final BenchmarkMatrix matrix;
+    private final Environment environment;
+
+    /**
+     * Sets up what the runs of a scenario need, so the client and the change maker are shared by its runs
+     */
+    interface Environment {
+        /**
+         * @throws IllegalArgumentException if the scenario cannot run in this environment, it is skipped
+         */
+        Trial prepare(BenchmarkMatrix.Scenario scenario);
+    }
+
+    /**
+     * The runs of one scenario
+     */
+    interface Trial extends AutoCloseable {
+        CDCStressTest.TestResult run() throws InterruptedException;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * What is compared between builds, and which way is better
+     */
+    enum Metric {
+        DOWNLOAD_RATE("download_rate", true, result -> result.totalCaptured() / (result.totalCdcTime() / 1000.0)),
+        PROCESS_RATE("process_rate", true, result -> result.totalProcessed() / (result.totalCdcTime() / 1000.0)),
+        RECEIVE_P50_MS("receive_p50_ms", false, result -> result.receiveLatency().p50() / 1000.0),
+        RECEIVE_P99_MS("receive_p99_ms", false, result -> result.receiveLatency().p99() / 1000.0),
+        PROCESS_P99_MS("process_p99_ms", false, result -> result.processLatency().p99() / 1000.0),
+        UNSEEN_CHANGES("unseen_changes", false, result -> result.verification().unseen(result.totalChanges())),
+        BROKEN_CHANGES("broken_changes", false, result -> result.verification().duplicates()
+                + result.verification().gaps() + result.verification().orderingViolations());
+
+        final String column;
+        final boolean higherIsBetter;
+        private final ToDoubleFunction<CDCStressTest.TestResult> value;
+
+        Metric(String column, boolean higherIsBetter, ToDoubleFunction<CDCStressTest.TestResult> value) {
+            this.column = column;
+            this.higherIsBetter = higherIsBetter;
+            this.value = value;
+        }
+
+        double of(CDCStressTest.TestResult result) {
+            return value.applyAsDouble(result);
+        }
+    }
+
+    /**
+     * The measured runs of one scenario, summarised
+     */
+    record ScenarioResult(BenchmarkMatrix.Scenario scenario, Map<Metric, Estimate> estimates) {
+    }
+
+    MatrixRunner(BenchmarkMatrix matrix, Environment environment) {
+        this.matrix = matrix;
+        this.environment = environment;
+    }
+
+    List<ScenarioResult> run() throws InterruptedException {
+        var scenarios = matrix.scenarios();
+        var results = new ArrayList<ScenarioResult>(scenarios.size());
+        System.out.println("Benchmark of " + matrix);
+        System.out.println("%60s,%15s,".formatted("Scenario", "Run") + CDCStressTest.TestResult.headers());
+        for (var scenario : scenarios) {
+            Trial trial;
+            try {
+                trial = environment.prepare(scenario);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Skipping " + scenario + ": " + e.getMessage());
+                continue;
+            }
+            try (trial) {
+                for (int i = 0; i < matrix.warmups(); i++) {
+                    print(scenario, "warmup " + (i + 1), trial.run());
+                }
+                var samples = new EnumMap<Metric, double[]>(Metric.class);
+                for (var metric : Metric.values()) {
+                    samples.put(metric, new double[matrix.repetitions()]);
+                }
+                for (int i = 0; i < matrix.repetitions(); i++) {
+                    var result = trial.run();
+                    print(scenario, "run " + (i + 1), result);
+                    for (var metric : Metric.values()) {
+                        samples.get(metric)[i] = metric.of(result);
+                    }
+                }
+                var estimates = new EnumMap<Metric, Estimate>(Metric.class);
+                samples.forEach((metric, values) -> estimates.put(metric, Estimate.of(values)));
+                results.add(new ScenarioResult(scenario, estimates));
+            }
+        }
+        return results;
+    }
+
+    private static void print(BenchmarkMatrix.Scenario scenario, String run, CDCStressTest.TestResult result) {
+        System.out.println("%60s,%15s,".formatted(scenario, run) + result);
+    }
+
+    /**
+     * One line per scenario: its parameters, then the mean, the confidence interval half width and the sample count of
+     * every metric. {@link BaselineComparator} reads this format back.
+     */
+    static void writeCsv(List<ScenarioResult> results, Path file) throws IOException {
+        var lines = new ArrayList<String>();
+        var header = new StringBuilder(BenchmarkMatrix.Scenario.CSV_HEADER);
+        for (var metric : Metric.values()) {
+            header.append(',').append(metric.column).append("_mean")
+                    .append(',').append(metric.column).append("_ci95")
+                    .append(',').append(metric.column).append("_n");
+        }
+        lines.add(header.toString());
+        for (var result : results) {
+            var line = new StringBuilder(result.scenario().toCsv());
+            for (var metric : Metric.values()) {
+                var estimate = result.estimates().get(metric);
+                line.append(',').append(estimate.mean())
+                        .append(',').append(estimate.halfWidth())
+                        .append(',').append(estimate.samples());
+            }
+            lines.add(line.toString());
+        }
+        Files.write(file, lines);
+    }
+
+    static void writeJson(List<ScenarioResult> results, Path file) throws IOException {
+        var json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            var result = results.get(i);
+            var scenario = result.scenario();
+            json.append("  {\"client\":\"").append(scenario.client()).append('"')
+                    .append(",\"readers\":").append(scenario.readers())
+                    .append(",\"writers\":").append(scenario.writers())
+                    .append(",\"batchSize\":").append(scenario.batchSize())
+                    .append(",\"payloadBytes\":").append(scenario.payloadBytes())
+                    .append(",\"rate\":").append(scenario.rate())
+                    .append(",\"metrics\":{");
+            var first = true;
+            for (var metric : Metric.values()) {
+                var estimate = result.estimates().get(metric);
+                json.append(first ? "" : ",").append('"').append(metric.column).append("\":")
+                        .append("{\"mean\":").append(estimate.mean())
+                        .append(",\"stddev\":").append(estimate.stddev())
+                        .append(",\"ci95\":").append(estimate.halfWidth())
+                        .append(",\"n\":").append(estimate.samples()).append('}');
+                first = false;
+            }
+            json.append("}}").append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.writeString(file, json);
+    }
+}
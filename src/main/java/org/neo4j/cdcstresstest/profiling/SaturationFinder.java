@@ -0,0 +1,204 @@
+package org.neo4j.cdcstresstest.profiling;
+
+/**
+ * Finds the highest change rate the client sustains, instead of sweeping a fixed range of rates.
+ * <p>
+ * The rate doubles until a run fails, then a binary search between the last passing and the first failing rate
+ * narrows the limit down until the two are within the requested precision. A run passes when no change was lost,
+ * the change maker reached the target rate, and the client was no more than a bounded number of seconds behind when
+ * the run ended.
+ * <p>
+ * Repeated or reordered changes are bugs in the client rather than signs of saturation. A run that has any stops the
+ * search and the result reports it as an error instead of a limit.
+ * <p>
+ * Every rate is run a few times and passes when most of its runs do, so that a single noisy run does not move the
+ * bracket. Rates whose runs disagreed are reported as the band where the limit is noisy.
+ */
+class SaturationFinder {
+
+    // The change maker may fall this far short of the target before a run says nothing about the client
+    private static final double MAX_GENERATOR_SHORTFALL = 0.05;
+
+    private final Probe probe;
+    private final int repeats;
+    private final double maxLagSeconds;
+    private final double precision;
+    // Lowest rate with a failing run and highest with a passing one, 0 if there was none
+    private int lowestFailure;
+    private int highestPass;
+    private Estimate sustainedThroughput;
+    // Why the search stopped early, null while it did not
+    private String error;
+
+    /**
+     * Runs a single test at the given rate
+     */
+    interface Probe {
+        CDCStressTest.TestResult run(int rate) throws InterruptedException;
+    }
+
+    /**
+     * @param repeats       Runs per rate
+     * @param maxLagSeconds Most the client may be behind at the end of a run, in seconds of changes at the target rate
+     * @param precision     Stop once the failing rate is within this fraction above the passing rate, like 0.05
+     */
+    SaturationFinder(Probe probe, int repeats, double maxLagSeconds, double precision) {
+        if (repeats < 1) {
+            throw new IllegalArgumentException("Need at least one run per rate, got " + repeats);
+        }
+        this.probe = probe;
+        this.repeats = repeats;
+        this.maxLagSeconds = maxLagSeconds;
+        this.precision = precision;
+    }
+
+    Result find(int initialRate, int maxRate) throws InterruptedException {
+        var runs = 0;
+        var passing = 0;
+        var failing = 0;
+        lowestFailure = 0;
+        highestPass = 0;
+        sustainedThroughput = null;
+        error = null;
+        System.out.println(CDCStressTest.TestResult.headers() + ",        Verdict");
+
+        // Exponential ramp until the limit is bracketed
+        var rate = initialRate;
+        while (rate <= maxRate) {
+            runs++;
+            var passes = passes(rate);
+            if (error != null) {
+                return result(passing, failing, runs);
+            }
+            if (passes) {
+                passing = rate;
+                rate = rate >= maxRate / 2 && rate < maxRate ? maxRate : rate * 2;
+            } else {
+                failing = rate;
+                break;
+            }
+        }
+        if (failing == 0) {
+            return result(passing, 0, runs);
+        }
+
+        // Binary search inside the bracket
+        while (failing - passing > Math.max(1, passing * precision)) {
+            rate = passing == 0 ? failing / 2 : passing + (failing - passing) / 2;
+            if (rate == 0) {
+                break;
+            }
+            runs++;
+            var passes = passes(rate);
+            if (error != null) {
+                break;
+            }
+            if (passes) {
+                passing = rate;
+            } else {
+                failing = rate;
+            }
+        }
+        return result(passing, failing, runs);
+    }
+
+    private Result result(int passing, int failing, int runs) {
+        var noisy = lowestFailure != 0 && lowestFailure <= highestPass;
+        return new Result(passing, failing, runs * repeats, sustainedThroughput,
+                noisy ? lowestFailure : 0, noisy ? highestPass : 0, error);
+    }
+
+    /**
+     * Run a rate {@link #repeats} times, it passes when most of the runs do. Stops at the first run the client got
+     * wrong and sets {@link #error}, the caller must not take the outcome as a pass or a failure then.
+     */
+    private boolean passes(int rate) throws InterruptedException {
+        var failures = 0;
+        var throughput = new double[repeats];
+        for (int i = 0; i < repeats; i++) {
+            var result = probe.run(rate);
+            var wrong = error(result);
+            if (wrong != null) {
+                System.out.println(result + ",%15s".formatted("error: " + wrong));
+                error = "%s at %d ch/s".formatted(wrong, rate);
+                return false;
+            }
+            var reason = failure(result);
+            System.out.println(result + ",%15s".formatted(reason == null ? "pass" : reason));
+            if (reason == null) {
+                highestPass = Math.max(highestPass, rate);
+            } else {
+                failures++;
+                lowestFailure = lowestFailure == 0 ? rate : Math.min(lowestFailure, rate);
+            }
+            throughput[i] = result.totalCdcTime() == 0 ? 0 : result.totalProcessed() * 1000.0 / result.totalCdcTime();
+        }
+        var passes = failures * 2 < repeats;
+        if (passes) {
+            // The search only moves the passing rate up
+            sustainedThroughput = Estimate.of(throughput);
+        }
+        return passes;
+    }
+
+    /**
+     * What the client got wrong in a run, or null if nothing
+     */
+    private static String error(CDCStressTest.TestResult result) {
+        var verification = result.verification();
+        if (verification.duplicates() > 0) {
+            return "duplicates";
+        }
+        if (verification.orderingViolations() > 0) {
+            return "out of order";
+        }
+        return null;
+    }
+
+    /**
+     * Why a run does not count as sustained, or null if it does
+     */
+    private String failure(CDCStressTest.TestResult result) {
+        // Missing changes are what saturation looks like
+        var verification = result.verification();
+        if (verification.gaps() > 0) {
+            return "changes lost";
+        }
+        if (result.changesBehind() > result.targetChanges() * MAX_GENERATOR_SHORTFALL) {
+            return "generator slow";
+        }
+        var lagSeconds = verification.unseen(result.totalChanges()) / (double) result.rate();
+        if (lagSeconds > maxLagSeconds) {
+            return "lag %.1fs".formatted(lagSeconds);
+        }
+        return null;
+    }
+
+    /**
+     * @param sustainableRate Highest rate that passed, 0 if none did
+     * @param failingRate     Lowest rate that failed, 0 if none did and the limit is above the highest rate tried
+     * @param runs            Number of test runs it took
+     * @param throughput      Changes processed per second over the runs at the sustainable rate, null if none passed
+     * @param noisyFrom       Lowest rate with a failing run, if runs disagreed up to {@code noisyTo}, otherwise 0
+     * @param noisyTo         Highest rate with a passing run, if runs disagreed from {@code noisyFrom}, otherwise 0
+     * @param error           The duplicates or reordering that stopped the search, null if it ran to the end
+     */
+    record Result(int sustainableRate, int failingRate, int runs, Estimate throughput, int noisyFrom, int noisyTo, String error) {
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return "Stopped by a client error, %s, after %d runs; the highest rate that passed until then was %d ch/s".formatted(
+                        error, runs, sustainableRate);
+            }
+            var processed = throughput == null ? "" : ", processed %s ch/s".formatted(throughput);
+            var noise = noisyFrom == 0 ? "" : ", runs disagreed between %d and %d ch/s".formatted(noisyFrom, noisyTo);
+            if (failingRate == 0) {
+                return "Sustained every rate up to %d ch/s%s%s (%d runs)".formatted(sustainableRate, processed, noise, runs);
+            }
+            return "Max sustainable rate %d ch/s%s, limit between %d and %d ch/s (+%.1f%%)%s (%d runs)".formatted(
+                    sustainableRate, processed, sustainableRate, failingRate,
+                    sustainableRate == 0 ? 100.0 : (failingRate - sustainableRate) * 100.0 / sustainableRate, noise, runs);
+        }
+    }
+}
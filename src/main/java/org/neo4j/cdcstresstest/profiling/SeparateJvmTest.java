@@ -0,0 +1,381 @@
+package org.neo4j.cdcstresstest.profiling;
+
+import org.neo4j.cdcstresstest.client.BoltChangeSource;
+import org.neo4j.cdcstresstest.client.CDCClient;
+import org.neo4j.cdcstresstest.load.CDCChangeMaker;
+import org.neo4j.cdcstresstest.metrics.jfr.FlightRecording;
+import org.neo4j.driver.AuthToken;
+import org.neo4j.driver.AuthTokens;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the change maker and the client each in a JVM of its own, so that the threads, allocations and GC pauses of
+ * one do not show up in the numbers of the other. This JVM only coordinates: it tells both over a loopback socket
+ * when to start and stop, and merges what they report into one {@link CDCStressTest.TestResult}.
+ * <p>
+ * The forked JVMs run this class with the same classpath and read the NEO4J_* environment variables they inherit.
+ * The peak thread count in the results is the one of the client's JVM.
+ * <p>
+ * When {@link CDCStressTest} records its runs, each forked JVM records its side of every run, into
+ * {@code run-001-5000chs-client.jfr} and {@code run-001-5000chs-changeMaker.jfr} and so on. This JVM only waits and
+ * is not recorded.
+ */
+public class SeparateJvmTest implements AutoCloseable {
+
+    private static final String CLIENT = "client";
+    private static final String CHANGE_MAKER = "changeMaker";
+    private static final long CONNECT_TIMEOUT_MS = 60*1000;
+    private static final int ACCEPT_POLL_MS = 100;
+    private static final long EXIT_TIMEOUT_MS = 30*1000;
+    // Longest a forked JVM may take to answer, stopping a run includes waiting for the client to drain and process
+    private static final int ANSWER_TIMEOUT_MS = 2*60*1000;
+
+    private final String uri;
+    private final AuthToken authToken;
+    private final ServerSocket server;
+    private final List<Process> processes = new ArrayList<>();
+    private Channel client;
+    private Channel changeMaker;
+
+    /**
+     * Sent to both JVMs to begin a run, the client answers once it is reading and the change maker once it is writing
+     *
+     * @param recordings Directory the JVMs write their recordings of the run to, null to not record
+     * @param runName    Name of the run, the recordings are called after it
+     */
+    record Start(String changeId, int rate, int testTime, int payloadBytes, String recordings, String runName) implements Serializable {
+
+        /**
+         * Start this JVM's recording of the run
+         *
+         * @return The recording, or null if the run is not recorded
+         */
+        FlightRecording record(String role) {
+            return FlightRecording.start(recordings == null ? null : Path.of(recordings), runName + "-" + role);
+        }
+    }
+
+    /**
+     * Sent to both JVMs to end a run, they answer with {@link Finished}
+     */
+    record Stop() implements Serializable {
+    }
+
+    /**
+     * @param result      The {@link CDCClient.RunResult} or {@link CDCChangeMaker.ChangeMakerResult} of the run
+     * @param peakThreads Most platform threads alive in the JVM during the run
+     */
+    record Finished(Serializable result, int peakThreads) implements Serializable {
+    }
+
+    /**
+     * Fork both JVMs and wait for them to connect
+     *
+     * @param clientName           The client to run, by its name in {@link MatrixBenchmark}
+     * @param readers              Number of reader threads of the client
+     * @param writers              Number of change maker threads
+     * @param batchSize            Changes per change maker batch
+     * @param clientJvmOptions     Options of the client's JVM, like its heap size and collector
+     * @param changeMakerJvmOptions Options of the change maker's JVM
+     */
+    public SeparateJvmTest(String uri, AuthToken authToken, String clientName, int readers, int writers, int batchSize,
+                           List<String> clientJvmOptions, List<String> changeMakerJvmOptions) {
+        this.uri = uri;
+        this.authToken = authToken;
+        try {
+            this.server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not listen for the forked JVMs", e);
+        }
+        Socket accepted = null;
+        try {
+            server.setSoTimeout(ACCEPT_POLL_MS);
+            var port = String.valueOf(server.getLocalPort());
+            fork(clientJvmOptions, CLIENT, port, clientName, String.valueOf(readers), String.valueOf(writers));
+            fork(changeMakerJvmOptions, CHANGE_MAKER, port, String.valueOf(writers), String.valueOf(batchSize));
+            for (int i = 0; i < 2; i++) {
+                accepted = accept();
+                // A forked JVM that hangs must not hang this one
+                accepted.setSoTimeout(ANSWER_TIMEOUT_MS);
+                var channel = new Channel(accepted);
+                var role = channel.receive();
+                if (role == null) {
+                    throw new EOFException("Forked JVM disconnected before saying what it runs");
+                }
+                if (CLIENT.equals(role)) {
+                    client = channel;
+                } else {
+                    changeMaker = channel;
+                }
+                accepted = null;
+            }
+        } catch (IOException e) {
+            shutDown(server, processes, accepted, client, changeMaker);
+            throw new UncheckedIOException("Could not start the forked JVMs", e);
+        }
+    }
+
+    /**
+     * Wait for a forked JVM to connect, giving up as soon as one of them exited
+     */
+    private Socket accept() throws IOException {
+        var deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while (true) {
+            try {
+                return server.accept();
+            } catch (SocketTimeoutException e) {
+                for (var process : processes) {
+                    if (!process.isAlive()) {
+                        throw new IOException("Forked JVM " + process.pid() + " exited with " + process.exitValue() + " before connecting");
+                    }
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Forked JVMs did not connect within " + CONNECT_TIMEOUT_MS + " ms");
+                }
+            }
+        }
+    }
+
+    private void fork(List<String> jvmOptions, String... args) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SeparateJvmTest.class.getName());
+        command.addAll(List.of(args));
+        processes.add(new ProcessBuilder(command).inheritIO().start());
+    }
+
+    /**
+     * Like {@link CDCStressTest#performanceTest}, with the client and the change maker in their own JVMs
+     */
+    public CDCStressTest.TestResult performanceTest(int rate, int testTime, int payloadBytes) throws InterruptedException {
+        // Clean slate
+        CDCStressTest.deleteAllNodes(uri, authToken);
+        Thread.sleep(1000);
+        // A path is not serializable, the forked JVMs share this one's working directory anyway
+        var recordings = CDCStressTest.recordings();
+        var start = new Start(CDCStressTest.currentChangeId(uri, authToken), rate, testTime, payloadBytes,
+                recordings == null ? null : recordings.toAbsolutePath().toString(), CDCStressTest.runName(rate));
+        try {
+            // The client is reading before the first change is made, like in a single JVM
+            client.call(start);
+            changeMaker.call(start);
+            Thread.sleep(testTime);
+
+            var cdcRes = (Finished) client.call(new Stop());
+            var cmRes = (Finished) changeMaker.call(new Stop());
+            return CDCStressTest.testResult(rate, testTime, (CDCClient.RunResult) cdcRes.result(),
+                    (CDCChangeMaker.ChangeMakerResult) cmRes.result(), cdcRes.peakThreads());
+        } catch (SocketTimeoutException e) {
+            // The stream may be in the middle of a message, the forked JVMs cannot be used anymore
+            processes.forEach(Process::destroyForcibly);
+            throw new UncheckedIOException("A forked JVM did not answer within " + ANSWER_TIMEOUT_MS + " ms", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost contact with a forked JVM", e);
+        }
+    }
+
+    /**
+     * Close the connections, which ends the forked JVMs, and wait for them to exit
+     */
+    @Override
+    public void close() {
+        shutDown(server, processes, client, changeMaker);
+    }
+
+    /**
+     * Static, so that a constructor that failed halfway can clean up without handing out its object
+     *
+     * @param connections Connections to the forked JVMs, null for those that were not made
+     */
+    private static void shutDown(ServerSocket server, List<Process> processes, Closeable... connections) {
+        for (var connection : connections) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (IOException e) {
+                    // Closed either way
+                }
+            }
+        }
+        // Also drops the connections of JVMs that were not accepted yet
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Nothing is listening anymore either way
+        }
+        for (var process : processes) {
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    System.err.println("Forked JVM " + process.pid() + " did not exit, killing it");
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * One end of the connection between the coordinator and a forked JVM, carrying serialized messages
+     */
+    private static class Channel implements Closeable {
+        private final Socket socket;
+        private final ObjectOutputStream out;
+        private final ObjectInputStream in;
+
+        Channel(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.out = new ObjectOutputStream(socket.getOutputStream());
+            // Both ends write their stream header before reading the other one's
+            out.flush();
+            this.in = new ObjectInputStream(socket.getInputStream());
+        }
+
+        void send(Object message) throws IOException {
+            out.writeObject(message);
+            // Forget what was sent, every message stands on its own
+            out.reset();
+            out.flush();
+        }
+
+        /**
+         * @return The next message, or null once the other end closed the connection
+         */
+        Object receive() throws IOException {
+            try {
+                return in.readObject();
+            } catch (EOFException e) {
+                return null;
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unexpected message", e);
+            }
+        }
+
+        Object call(Object message) throws IOException {
+            send(message);
+            var answer = receive();
+            if (answer == null) {
+                throw new EOFException("Connection closed while waiting for an answer to " + message);
+            }
+            return answer;
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closed either way
+            }
+        }
+    }
+
+    /**
+     * The forked side: {@code client <port> <client name> <readers> <writers>} or
+     * {@code changeMaker <port> <writers> <batch size>}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var role = args[0];
+        var port = Integer.parseInt(args[1]);
+        var uri = System.getenv("NEO4J_URI");
+        var authToken = AuthTokens.basic(System.getenv("NEO4J_USERNAME"), System.getenv("NEO4J_PASSWORD"));
+        try (var channel = new Channel(new Socket(InetAddress.getLoopbackAddress(), port))) {
+            channel.send(role);
+            if (role.equals(CLIENT)) {
+                var writers = Integer.parseInt(args[4]);
+                var labels = IntStream.range(0, writers).mapToObj(CDCChangeMaker::label).toList();
+                try (var source = new BoltChangeSource(uri, authToken);
+                     var cdc = MatrixBenchmark.client(args[2], Integer.parseInt(args[3]), source, labels)) {
+                    serveClient(channel, cdc);
+                }
+            } else {
+                try (var cm = new CDCChangeMaker(uri, authToken, Integer.parseInt(args[2]), Integer.parseInt(args[3]))) {
+                    serveChangeMaker(channel, cm);
+                }
+            }
+        }
+    }
+
+    private static void serveClient(Channel channel, CDCClient cdc) throws IOException, InterruptedException {
+        // Virtual threads do not count, this is the number of platform threads the client needed
+        var threads = ManagementFactory.getThreadMXBean();
+        var running = false;
+        FlightRecording recording = null;
+        Object message;
+        while ((message = channel.receive()) != null) {
+            if (message instanceof Start start) {
+                threads.resetPeakThreadCount();
+                recording = start.record(CLIENT);
+                cdc.start(start.changeId());
+                running = true;
+                channel.send(start);
+            } else {
+                var result = cdc.waitForResults();
+                running = false;
+                stopRecording(recording);
+                channel.send(new Finished(result, threads.getPeakThreadCount()));
+            }
+        }
+        // The coordinator went away in the middle of a run
+        if (running) {
+            cdc.waitForResults();
+            stopRecording(recording);
+        }
+    }
+
+    private static void serveChangeMaker(Channel channel, CDCChangeMaker cm) throws IOException, InterruptedException {
+        var threads = ManagementFactory.getThreadMXBean();
+        var running = false;
+        FlightRecording recording = null;
+        Object message;
+        while ((message = channel.receive()) != null) {
+            if (message instanceof Start start) {
+                threads.resetPeakThreadCount();
+                recording = start.record(CHANGE_MAKER);
+                cm.start(start.testTime(), start.rate(), start.payloadBytes());
+                running = true;
+                channel.send(start);
+            } else {
+                var result = cm.waitForResults();
+                running = false;
+                stopRecording(recording);
+                channel.send(new Finished(result, threads.getPeakThreadCount()));
+            }
+        }
+        if (running) {
+            cm.waitForResults();
+            stopRecording(recording);
+        }
+    }
+
+    /**
+     * @param recording The recording of the run that ended, null if it was not recorded
+     */
+    private static void stopRecording(FlightRecording recording) {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}